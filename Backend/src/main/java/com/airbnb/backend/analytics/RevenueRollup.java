@@ -0,0 +1,302 @@
+package com.airbnb.backend.analytics;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import com.airbnb.backend.dto.RevenueRollupDTO;
+import com.airbnb.backend.index.PropertyIndex;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Revenue, nights sold and booking counts per (city, room type, month), kept as an in-memory cube.
+ * A stay is split over the months its nights fall in, with the price shared out per night in cents
+ * (the rounding remainder goes to the last month), so a booking always contributes exactly its price.
+ * Each booking's contribution is remembered so an update or delete subtracts exactly what was added.
+ * Listing counts per (city, room type) come from the Properties snapshot for the occupancy rate.
+ * Bookings keep the city and room type their property had when they were recorded; a rebuild
+ * regroups them if a property has since moved.
+ */
+@Component
+public class RevenueRollup implements PropertyIndex {
+
+    private final Map<Integer, String> groupByProperty = new HashMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+    private final Map<Integer, Contribution> contributions = new HashMap<>();
+    private final Map<String, Cell> cells = new HashMap<>();
+    // Writes made while a rebuild is reading Bookings; replayed on top of the rebuilt cube
+    private List<Map.Entry<Integer, Contribution>> journal;
+    private volatile boolean loaded;
+    private volatile boolean bookingsLoaded;
+
+    @Override
+    public synchronized void load(List<PropertyDTO> properties) {
+        groupByProperty.clear();
+        groups.values().forEach(group -> group.listings = 0);
+        for (PropertyDTO property : properties) {
+            addListing(property);
+        }
+        loaded = true;
+    }
+
+    @Override
+    public synchronized void upsert(PropertyDTO property) {
+        removeListing(property.getId());
+        addListing(property);
+    }
+
+    /**
+     * Deleting a property cascades to its bookings, so their revenue goes too
+     */
+    @Override
+    public synchronized void remove(int propertyId) {
+        removeListing(propertyId);
+        List<Integer> bookingIds = new ArrayList<>();
+        contributions.forEach((bookingId, contribution) -> {
+            if (contribution.propertyId == propertyId) {
+                bookingIds.add(bookingId);
+            }
+        });
+        bookingIds.forEach(this::release);
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Whether bookings have been rolled up at least once; until then the cube has no revenue
+     */
+    public boolean isBookingsLoaded() {
+        return bookingsLoaded;
+    }
+
+    /**
+     * Adds a booking, replacing its previous contribution if it was already recorded. Bookings of
+     * properties the rollup does not know yet are skipped; the next rebuild picks them up.
+     */
+    public synchronized void record(int bookingId, int propertyId, BigDecimal price, LocalDate start, LocalDate end) {
+        String group = groupByProperty.get(propertyId);
+        if (group == null) {
+            return;
+        }
+        Contribution contribution = new Contribution(propertyId, group, start, end, price);
+        if (journal != null) {
+            journal.add(Map.entry(bookingId, contribution));
+        }
+        record(bookingId, contribution);
+    }
+
+    public synchronized void release(int bookingId) {
+        if (journal != null) {
+            journal.add(new AbstractMap.SimpleEntry<>(bookingId, null));
+        }
+        forget(bookingId);
+    }
+
+    /**
+     * Starts journaling writes; call before a rebuild starts reading Bookings
+     */
+    synchronized void beginRebuild() {
+        journal = new ArrayList<>();
+    }
+
+    synchronized void abortRebuild() {
+        journal = null;
+    }
+
+    /**
+     * Replaces every booking contribution with a freshly rolled up set, then replays the writes made
+     * since {@link #beginRebuild}. Recording or releasing a booking twice has the same effect as once,
+     * so writes the rebuild already saw are harmless.
+     */
+    synchronized void replaceBookings(Map<Integer, Contribution> rebuilt, Map<String, String[]> groupNames) {
+        groupNames.forEach((key, names) -> groups.computeIfAbsent(key, k -> new Group(names[0], names[1])));
+        contributions.clear();
+        cells.clear();
+        rebuilt.forEach(this::record);
+
+        List<Map.Entry<Integer, Contribution>> replay = journal != null ? journal : List.of();
+        journal = null;
+        for (Map.Entry<Integer, Contribution> write : replay) {
+            if (write.getValue() != null) {
+                record(write.getKey(), write.getValue());
+            } else {
+                forget(write.getKey());
+            }
+        }
+        bookingsLoaded = true;
+    }
+
+    synchronized int cellCount() {
+        return cells.size();
+    }
+
+    /**
+     * Rollup rows for the months in [from, to] (either bound optional), optionally restricted to one
+     * city and/or room type (case-insensitive), ordered by city, room type and month
+     */
+    public synchronized List<RevenueRollupDTO> query(String city, String roomType, YearMonth from, YearMonth to) {
+        List<RevenueRollupDTO> rows = new ArrayList<>();
+        for (Cell cell : cells.values()) {
+            Group group = groups.get(cell.group);
+            if ((city != null && !group.city.equalsIgnoreCase(city))
+                    || (roomType != null && !group.roomType.equalsIgnoreCase(roomType))
+                    || (from != null && cell.month.isBefore(from))
+                    || (to != null && cell.month.isAfter(to))) {
+                continue;
+            }
+            rows.add(cell.toDTO(group));
+        }
+        rows.sort(Comparator.comparing(RevenueRollupDTO::getCity, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(RevenueRollupDTO::getRoomType, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(RevenueRollupDTO::getMonth));
+        return rows;
+    }
+
+    private void record(int bookingId, Contribution contribution) {
+        Contribution previous = contributions.put(bookingId, contribution);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(contribution, 1);
+    }
+
+    private void forget(int bookingId) {
+        Contribution previous = contributions.remove(bookingId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    /** Adds (sign 1) or subtracts (sign -1) a booking's nights and revenue month by month */
+    private void apply(Contribution contribution, int sign) {
+        long totalNights = contribution.end.toEpochDay() - contribution.start.toEpochDay();
+        if (totalNights <= 0) {
+            return;
+        }
+        long allocatedCents = 0;
+        long allocatedNights = 0;
+        YearMonth month = YearMonth.from(contribution.start);
+        cell(contribution.group, month).bookings += sign;
+
+        while (allocatedNights < totalNights) {
+            LocalDate monthEnd = month.plusMonths(1).atDay(1);
+            long from = Math.max(contribution.start.toEpochDay(), month.atDay(1).toEpochDay());
+            long nights = Math.min(contribution.end.toEpochDay(), monthEnd.toEpochDay()) - from;
+            allocatedNights += nights;
+            long cents = allocatedNights == totalNights
+                    ? contribution.priceCents - allocatedCents
+                    : contribution.priceCents * nights / totalNights;
+            allocatedCents += cents;
+
+            Cell cell = cell(contribution.group, month);
+            cell.nights += sign * nights;
+            cell.revenueCents += sign * cents;
+            if (cell.nights == 0 && cell.bookings == 0) {
+                cells.remove(cell.key);
+            }
+            month = month.plusMonths(1);
+        }
+    }
+
+    private Cell cell(String group, YearMonth month) {
+        String key = group + '\u0000' + month;
+        return cells.computeIfAbsent(key, k -> new Cell(k, group, month));
+    }
+
+    private void addListing(PropertyDTO property) {
+        String key = groupKey(property.getCity(), property.getRoomType());
+        groupByProperty.put(property.getId(), key);
+        groups.computeIfAbsent(key, k -> new Group(property.getCity(), property.getRoomType())).listings++;
+    }
+
+    private void removeListing(int propertyId) {
+        String key = groupByProperty.remove(propertyId);
+        if (key != null) {
+            groups.get(key).listings--;
+        }
+    }
+
+    // City and room type comparisons in MySQL follow the case-insensitive column collation
+    static String groupKey(String city, String roomType) {
+        return (city == null ? "" : city.toLowerCase(Locale.ROOT)) + '\u0000'
+                + (roomType == null ? "" : roomType.toLowerCase(Locale.ROOT));
+    }
+
+    /** What one booking added to the cube */
+    static final class Contribution {
+
+        final int propertyId;
+        final String group;
+        final LocalDate start;
+        final LocalDate end;
+        final long priceCents;
+
+        Contribution(int propertyId, String group, LocalDate start, LocalDate end, BigDecimal price) {
+            this.propertyId = propertyId;
+            this.group = group;
+            this.start = start;
+            this.end = end;
+            this.priceCents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+    }
+
+    private static final class Group {
+
+        final String city;
+        final String roomType;
+        int listings;
+
+        Group(String city, String roomType) {
+            this.city = city == null ? "" : city;
+            this.roomType = roomType == null ? "" : roomType;
+        }
+    }
+
+    private static final class Cell {
+
+        final String key;
+        final String group;
+        final YearMonth month;
+        long revenueCents;
+        long nights;
+        // Bookings checking in during this month
+        long bookings;
+
+        Cell(String key, String group, YearMonth month) {
+            this.key = key;
+            this.group = group;
+            this.month = month;
+        }
+
+        RevenueRollupDTO toDTO(Group group) {
+            RevenueRollupDTO row = new RevenueRollupDTO();
+            row.setCity(group.city);
+            row.setRoomType(group.roomType);
+            row.setMonth(month.toString());
+            row.setRevenue(BigDecimal.valueOf(revenueCents, 2));
+            row.setNightsSold(nights);
+            row.setBookings(bookings);
+            row.setListings(group.listings);
+            row.setAverageDailyRate(nights > 0
+                    ? BigDecimal.valueOf(revenueCents).divide(BigDecimal.valueOf(nights * 100), 2, RoundingMode.HALF_UP)
+                    : null);
+            long availableNights = (long) group.listings * month.lengthOfMonth();
+            row.setOccupancy(availableNights > 0
+                    ? BigDecimal.valueOf(nights).divide(BigDecimal.valueOf(availableNights), 4, RoundingMode.HALF_UP)
+                    : null);
+            return row;
+        }
+    }
+}
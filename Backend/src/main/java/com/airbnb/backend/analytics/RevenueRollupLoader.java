@@ -0,0 +1,183 @@
+package com.airbnb.backend.analytics;
+
+import com.airbnb.backend.dto.RevenueRollupRebuildDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rebuilds the {@link RevenueRollup} from scratch. The Bookings ID range is cut into slices that are
+ * read in parallel, each by its own connection and primary-key range scan joined to Properties for the
+ * city and room type; the partial results are merged and swapped in at once. Runs at startup, retries
+ * until MySQL is reachable, and can be triggered through the analytics endpoint.
+ */
+@Component
+public class RevenueRollupLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupLoader.class);
+
+    // Slices per thread, so one slow slice does not leave the other threads idle
+    private static final int SLICES_PER_THREAD = 4;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RevenueRollup revenueRollup;
+
+    @Value("${revenue-rollup.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loadAll();
+    }
+
+    @Scheduled(initialDelayString = "${property-index.retry-interval-ms:60000}",
+               fixedDelayString = "${property-index.retry-interval-ms:60000}")
+    public void retryIfNotLoaded() {
+        if (!revenueRollup.isBookingsLoaded()) {
+            loadAll();
+        }
+    }
+
+    /**
+     * Rebuilds and logs instead of throwing when MySQL is not reachable
+     */
+    public void loadAll() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not build the revenue rollup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the rollup from the Bookings table and reports how long it took
+     */
+    public synchronized RevenueRollupRebuildDTO rebuild() {
+        long start = System.nanoTime();
+        int threads = Math.max(1, rebuildThreads);
+        revenueRollup.beginRebuild();
+        try {
+            long[] range = idRange();
+            List<long[]> slices = slices(range[0], range[1], threads * SLICES_PER_THREAD);
+
+            Map<Integer, RevenueRollup.Contribution> contributions = new HashMap<>();
+            Map<String, String[]> groupNames = new HashMap<>();
+            ExecutorService readers = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Slice>> results = new ArrayList<>();
+                for (long[] slice : slices) {
+                    results.add(readers.submit(() -> readSlice(slice[0], slice[1])));
+                }
+                for (Future<Slice> result : results) {
+                    Slice slice = result.get();
+                    contributions.putAll(slice.contributions);
+                    groupNames.putAll(slice.groupNames);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Revenue rollup rebuild interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error rebuilding revenue rollup", e.getCause());
+            } finally {
+                readers.shutdownNow();
+            }
+
+            revenueRollup.replaceBookings(contributions, groupNames);
+
+            RevenueRollupRebuildDTO result = new RevenueRollupRebuildDTO();
+            result.setBookings(contributions.size());
+            result.setCells(revenueRollup.cellCount());
+            result.setSlices(slices.size());
+            result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            log.info("Rolled up {} bookings into {} revenue cells from {} slices in {} ms",
+                    result.getBookings(), result.getCells(), result.getSlices(), result.getElapsedMillis());
+            return result;
+        } catch (RuntimeException e) {
+            revenueRollup.abortRebuild();
+            throw e;
+        }
+    }
+
+    private long[] idRange() {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT MIN(ID), MAX(ID) FROM Bookings");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return new long[] {rs.getLong(1), rs.getLong(2)};
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading booking ID range", e);
+        }
+    }
+
+    /** Splits [min, max] into at most {@code count} contiguous inclusive ranges */
+    static List<long[]> slices(long min, long max, int count) {
+        List<long[]> slices = new ArrayList<>();
+        if (max < min || max == 0) {
+            return slices;
+        }
+        long width = Math.max(1, (max - min + count) / count);
+        for (long from = min; from <= max; from += width) {
+            slices.add(new long[] {from, Math.min(max, from + width - 1)});
+        }
+        return slices;
+    }
+
+    private Slice readSlice(long fromId, long toId) {
+        Slice slice = new Slice();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT b.ID, b.Property_ID, b.Price, b.Booking_start, b.Booking_end, p.City, p.Room_type " +
+                     "FROM Bookings b JOIN Properties p ON p.ID = b.Property_ID " +
+                     "WHERE b.ID BETWEEN ? AND ?",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Integer.MIN_VALUE makes Connector/J stream rows one at a time instead of buffering the result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setLong(1, fromId);
+            stmt.setLong(2, toId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String city = rs.getString("City");
+                    String roomType = rs.getString("Room_type");
+                    String group = RevenueRollup.groupKey(city, roomType);
+                    slice.groupNames.putIfAbsent(group, new String[] {city, roomType});
+                    slice.contributions.put(rs.getInt("ID"), new RevenueRollup.Contribution(
+                            rs.getInt("Property_ID"), group,
+                            rs.getDate("Booking_start").toLocalDate(), rs.getDate("Booking_end").toLocalDate(),
+                            rs.getBigDecimal("Price")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading bookings " + fromId + "-" + toId, e);
+        }
+        return slice;
+    }
+
+    private static final class Slice {
+
+        final Map<Integer, RevenueRollup.Contribution> contributions = new HashMap<>();
+        final Map<String, String[]> groupNames = new HashMap<>();
+    }
+}
@@ -0,0 +1,196 @@
+package com.airbnb.backend.availability;
+
+import com.airbnb.backend.dto.BookingDTO;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Booked nights per property, mirrored from the Bookings table.
+ * Each property keeps its stays in a TreeMap ordered by start day. Stays of one property never overlap
+ * (the prevent_overlapping_booking triggers guarantee that for inserts and updates), so the only stay
+ * that can collide with [start, end) is the last one starting before end: an overlap check is one
+ * floorEntry, O(log n) in the property's booking count. The triggers stay in place as the final guard.
+ */
+@Component
+public class AvailabilityCalendar {
+
+    private volatile Map<Integer, PropertyCalendar> calendars = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Stay> staysByBookingId = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    // Writes made while a load is reading Bookings; replayed on top of the snapshot
+    private List<Runnable> journal;
+
+    /**
+     * Starts journaling writes; call before the snapshot starts reading Bookings
+     */
+    public synchronized void beginLoad() {
+        journal = new ArrayList<>();
+    }
+
+    public synchronized void abortLoad() {
+        journal = null;
+    }
+
+    /**
+     * Replace the calendar with a snapshot of the Bookings table, then replay the writes made since
+     * {@link #beginLoad}. Booking, releasing or dropping twice has the same effect as once, so writes the
+     * snapshot already saw are harmless.
+     */
+    public synchronized void load(List<BookingDTO> bookings) {
+        Map<Integer, PropertyCalendar> freshCalendars = new ConcurrentHashMap<>();
+        Map<Integer, Stay> freshStays = new ConcurrentHashMap<>();
+        for (BookingDTO booking : bookings) {
+            Stay stay = new Stay(booking.getId(), booking.getPropertyId(),
+                    booking.getBookingStart(), booking.getBookingEnd());
+            freshStays.put(stay.bookingId, stay);
+            freshCalendars.computeIfAbsent(stay.propertyId, k -> new PropertyCalendar()).add(stay);
+        }
+        calendars = freshCalendars;
+        staysByBookingId = freshStays;
+
+        List<Runnable> replay = journal != null ? journal : List.of();
+        journal = null;
+        replay.forEach(Runnable::run);
+        loaded = true;
+    }
+
+    /**
+     * Whether a snapshot has been loaded; until then callers rely on the MySQL trigger alone
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * ID of a booking of the property that overlaps [start, end), or null if the nights are free.
+     *
+     * @param ignoredBookingId booking to leave out of the check (the one being moved), or null
+     */
+    public Integer findOverlap(int propertyId, LocalDate start, LocalDate end, Integer ignoredBookingId) {
+        PropertyCalendar calendar = calendars.get(propertyId);
+        if (calendar == null) {
+            return null;
+        }
+        return calendar.findOverlap(start.toEpochDay(), end.toEpochDay(),
+                ignoredBookingId != null ? ignoredBookingId : -1);
+    }
+
+    /**
+     * Whether every night in [start, end) is free
+     */
+    public boolean isAvailable(int propertyId, LocalDate start, LocalDate end) {
+        return findOverlap(propertyId, start, end, null) == null;
+    }
+
+    /**
+     * Property of an indexed booking, or null if the booking is not known
+     */
+    public Integer propertyOf(int bookingId) {
+        Stay stay = staysByBookingId.get(bookingId);
+        return stay == null ? null : stay.propertyId;
+    }
+
+    /**
+     * Record a new booking or move an existing one to new dates
+     */
+    public synchronized void book(int bookingId, int propertyId, LocalDate start, LocalDate end) {
+        if (journal != null) {
+            journal.add(() -> book(bookingId, propertyId, start, end));
+        }
+        unindex(bookingId);
+        Stay stay = new Stay(bookingId, propertyId, start, end);
+        staysByBookingId.put(bookingId, stay);
+        calendars.computeIfAbsent(propertyId, k -> new PropertyCalendar()).add(stay);
+    }
+
+    public synchronized void release(int bookingId) {
+        if (journal != null) {
+            journal.add(() -> release(bookingId));
+        }
+        unindex(bookingId);
+    }
+
+    private void unindex(int bookingId) {
+        Stay stay = staysByBookingId.remove(bookingId);
+        if (stay != null) {
+            PropertyCalendar calendar = calendars.get(stay.propertyId);
+            if (calendar != null) {
+                calendar.remove(stay);
+            }
+        }
+    }
+
+    /**
+     * Drop every booking of a property; Bookings rows go with their property (ON DELETE CASCADE)
+     */
+    public synchronized void releaseProperty(int propertyId) {
+        if (journal != null) {
+            journal.add(() -> releaseProperty(propertyId));
+        }
+        PropertyCalendar calendar = calendars.remove(propertyId);
+        if (calendar != null) {
+            for (Stay stay : calendar.stays()) {
+                staysByBookingId.remove(stay.bookingId);
+            }
+        }
+    }
+
+    private static final class Stay {
+
+        final int bookingId;
+        final int propertyId;
+        final long startDay;
+        final long endDay;
+
+        Stay(int bookingId, int propertyId, LocalDate start, LocalDate end) {
+            this.bookingId = bookingId;
+            this.propertyId = propertyId;
+            this.startDay = start.toEpochDay();
+            this.endDay = end.toEpochDay();
+        }
+
+        // Ordered by start day; the booking ID keeps keys unique when two stays start the same day
+        long key() {
+            return key(startDay, bookingId);
+        }
+
+        static long key(long startDay, int bookingId) {
+            return (startDay << 32) | (bookingId & 0xFFFFFFFFL);
+        }
+    }
+
+    private static final class PropertyCalendar {
+
+        private final TreeMap<Long, Stay> byStart = new TreeMap<>();
+
+        synchronized void add(Stay stay) {
+            byStart.put(stay.key(), stay);
+        }
+
+        synchronized void remove(Stay stay) {
+            byStart.remove(stay.key());
+        }
+
+        synchronized List<Stay> stays() {
+            return new ArrayList<>(byStart.values());
+        }
+
+        /** The last stay starting before endDay (skipping the ignored booking) is the only candidate */
+        synchronized Integer findOverlap(long startDay, long endDay, int ignoredBookingId) {
+            Map.Entry<Long, Stay> entry = byStart.lowerEntry(Stay.key(endDay, 0));
+            while (entry != null && entry.getValue().bookingId == ignoredBookingId) {
+                entry = byStart.lowerEntry(entry.getKey());
+            }
+            if (entry != null && entry.getValue().endDay > startDay) {
+                return entry.getValue().bookingId;
+            }
+            return null;
+        }
+    }
+}
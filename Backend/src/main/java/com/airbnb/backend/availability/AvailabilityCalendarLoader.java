@@ -0,0 +1,60 @@
+package com.airbnb.backend.availability;
+
+import com.airbnb.backend.dto.BookingDTO;
+import com.airbnb.backend.service.BookingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the Bookings table into the {@link AvailabilityCalendar} at startup, retrying until MySQL is
+ * reachable. Until it succeeds, overlap checks are left to the prevent_overlapping_booking trigger.
+ * Bookings written while the stream runs are journaled by the calendar and replayed after the swap.
+ */
+@Component
+public class AvailabilityCalendarLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityCalendarLoader.class);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loadAll();
+    }
+
+    @Scheduled(initialDelayString = "${property-index.retry-interval-ms:60000}",
+               fixedDelayString = "${property-index.retry-interval-ms:60000}")
+    public void retryIfNotLoaded() {
+        if (!availabilityCalendar.isLoaded()) {
+            loadAll();
+        }
+    }
+
+    public synchronized void loadAll() {
+        long start = System.nanoTime();
+        availabilityCalendar.beginLoad();
+        try {
+            List<BookingDTO> snapshot = new ArrayList<>();
+            bookingService.streamAllBookings(snapshot::add);
+            availabilityCalendar.load(snapshot);
+
+            log.info("Loaded {} bookings into the availability calendar in {} ms",
+                    snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            availabilityCalendar.abortLoad();
+            log.warn("Could not load the availability calendar, relying on the overlap trigger: {}", e.getMessage());
+        }
+    }
+}
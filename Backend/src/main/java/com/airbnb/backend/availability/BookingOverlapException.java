@@ -0,0 +1,18 @@
+package com.airbnb.backend.availability;
+
+/**
+ * Requested stay overlaps an existing booking of the same property
+ */
+public class BookingOverlapException extends RuntimeException {
+
+    private final int conflictingBookingId;
+
+    public BookingOverlapException(int conflictingBookingId) {
+        super("Booking dates overlap with an existing booking.");
+        this.conflictingBookingId = conflictingBookingId;
+    }
+
+    public int getConflictingBookingId() {
+        return conflictingBookingId;
+    }
+}
@@ -0,0 +1,57 @@
+package com.airbnb.backend.availability;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.BitSet;
+
+/**
+ * IDs of completed bookings as a bitmap (booking IDs are dense AUTO_INCREMENT values, so a million
+ * bookings fit in about 125 KB). Backs the review eligibility check so it needs no database round trip.
+ * Loaded and refreshed by BookingStatusService; BookingService records every write in between.
+ * "Today" follows the database's time zone, taken from MySQL on every load, so that recorded writes agree
+ * with the CURDATE() the status triggers use.
+ */
+@Component
+public class CompletedBookings {
+
+    private final BitSet ids = new BitSet();
+    private volatile boolean loaded;
+    private volatile Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Replaces the set and the time zone of the database it was read from
+     */
+    public synchronized void load(BitSet completed, ZoneId databaseZone) {
+        ids.clear();
+        ids.or(completed);
+        clock = Clock.system(databaseZone);
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized boolean contains(int bookingId) {
+        return ids.get(bookingId);
+    }
+
+    /**
+     * Marks the booking completed if its stay ended before today in the database's time zone, and not
+     * completed otherwise
+     */
+    public synchronized void record(int bookingId, LocalDate bookingEnd) {
+        ids.set(bookingId, bookingEnd.isBefore(LocalDate.now(clock)));
+    }
+
+    public synchronized void remove(int bookingId) {
+        ids.clear(bookingId);
+    }
+
+    public synchronized int size() {
+        return ids.cardinality();
+    }
+}
@@ -0,0 +1,102 @@
+package com.airbnb.backend.availability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped in-process locks keyed by Property_ID, held around "check availability, then insert" so two
+ * bookings of the same property cannot both pass the check. Properties on different stripes proceed in
+ * parallel. The locks only cover this JVM; the overlap trigger still guards writes from elsewhere.
+ * Waiting time is published as the booking.lock.wait timer and immediate-acquire failures as the
+ * booking.lock.contended counter.
+ */
+@Component
+public class PropertyLocks {
+
+    private final ReentrantLock[] stripes;
+    private final Timer waitTimer;
+    private final Counter contended;
+
+    public PropertyLocks(@Value("${booking-locks.stripes:1024}") int stripeCount, MeterRegistry meterRegistry) {
+        // Power of two so the stripe is a mask of the spread hash
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.waitTimer = Timer.builder("booking.lock.wait")
+                .description("Time spent waiting for a per-property booking lock")
+                .register(meterRegistry);
+        this.contended = Counter.builder("booking.lock.contended")
+                .description("Booking lock acquisitions that had to wait for another request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action while holding the lock of the property's stripe
+     */
+    public <T> T withLock(int propertyId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(propertyId)];
+        acquire(lock);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the stripes of every given property. Stripes are taken in index
+     * order so that concurrent multi-property callers cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Integer> propertyIds, Supplier<T> action) {
+        boolean[] needed = new boolean[stripes.length];
+        for (int propertyId : propertyIds) {
+            needed[stripe(propertyId)] = true;
+        }
+
+        int held = 0;
+        try {
+            for (; held < stripes.length; held++) {
+                if (needed[held]) {
+                    acquire(stripes[held]);
+                }
+            }
+            return action.get();
+        } finally {
+            for (int i = held - 1; i >= 0; i--) {
+                if (needed[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Spread consecutive IDs so neighbouring properties do not share low bits
+    private int stripe(int propertyId) {
+        int h = propertyId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
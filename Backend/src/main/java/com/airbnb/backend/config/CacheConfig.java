@@ -0,0 +1,68 @@
+package com.airbnb.backend.config;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import com.airbnb.backend.idempotency.StoredResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Read-through cache in front of GetProperty. Hit, miss and eviction counts are published
+     * as cache.* metrics under the name "properties".
+     */
+    @Bean
+    public Cache<Integer, PropertyDTO> propertyCache(
+            @Value("${property-cache.maximum-size:10000}") long maximumSize,
+            @Value("${property-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        Cache<Integer, PropertyDTO> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "properties");
+    }
+
+    /**
+     * Completed responses by Idempotency-Key; published as cache.* metrics under "idempotency"
+     */
+    @Bean
+    public Cache<String, StoredResponse> idempotencyCache(
+            @Value("${idempotency.maximum-size:100000}") long maximumSize,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            MeterRegistry meterRegistry) {
+        Cache<String, StoredResponse> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+    }
+
+    /**
+     * Guest name, email and booking price by booking ID for review enrichment; published as cache.*
+     * metrics under "guest-info". The short TTL bounds how stale a renamed guest can appear.
+     */
+    @Bean
+    public Cache<Integer, Map<String, Object>> guestInfoCache(
+            @Value("${guest-info-cache.maximum-size:50000}") long maximumSize,
+            @Value("${guest-info-cache.ttl-seconds:60}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        Cache<Integer, Map<String, Object>> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "guest-info");
+    }
+}
@@ -0,0 +1,53 @@
+package com.airbnb.backend.controller;
+
+import com.airbnb.backend.analytics.RevenueRollup;
+import com.airbnb.backend.analytics.RevenueRollupLoader;
+import com.airbnb.backend.dto.RevenueRollupDTO;
+import com.airbnb.backend.dto.RevenueRollupRebuildDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@Tag(name = "Analytics Controller", description = "Pre-aggregated revenue and occupancy figures")
+public class AnalyticsController {
+
+    private final RevenueRollup revenueRollup;
+    private final RevenueRollupLoader revenueRollupLoader;
+
+    public AnalyticsController(RevenueRollup revenueRollup, RevenueRollupLoader revenueRollupLoader) {
+        this.revenueRollup = revenueRollup;
+        this.revenueRollupLoader = revenueRollupLoader;
+    }
+
+    @GetMapping("/revenue")
+    @Operation(summary = "Revenue and occupancy per city, room type and month",
+               description = "Revenue, nights sold, bookings (by check-in month), average daily rate and occupancy (nights sold / " +
+                             "listings x days in month). Stays spanning months are split by night. Optional city, roomType and " +
+                             "from/to months (yyyy-MM). Served from an in-memory rollup kept current on every booking write.")
+    public ResponseEntity<List<RevenueRollupDTO>> getRevenue(
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String roomType,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        if (!revenueRollup.isLoaded() || !revenueRollup.isBookingsLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Revenue rollup is still loading");
+        }
+        return ResponseEntity.ok(revenueRollup.query(city, roomType, from, to));
+    }
+
+    @PostMapping("/revenue/rebuild")
+    @Operation(summary = "Rebuild the revenue rollup",
+               description = "Recomputes the rollup from the Bookings table, reading ID ranges in parallel")
+    public ResponseEntity<RevenueRollupRebuildDTO> rebuildRevenue() {
+        return ResponseEntity.ok(revenueRollupLoader.rebuild());
+    }
+}
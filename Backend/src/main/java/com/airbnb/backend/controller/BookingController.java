@@ -1,13 +1,33 @@
 package com.airbnb.backend.controller;
 
+import com.airbnb.backend.availability.BookingOverlapException;
+import com.airbnb.backend.dto.BookingBulkResultDTO;
 import com.airbnb.backend.dto.BookingCreateDTO;
 import com.airbnb.backend.dto.BookingDTO;
+import com.airbnb.backend.dto.BookingIntakeStatusDTO;
+import com.airbnb.backend.dto.BookingPageDTO;
+import com.airbnb.backend.dto.BookingSearchCriteria;
 import com.airbnb.backend.dto.BookingUpdateDTO;
+import com.airbnb.backend.idempotency.IdempotencyService;
+import com.airbnb.backend.service.BookingIntakeService;
+import com.airbnb.backend.service.BookingIntakeStoppedException;
+import com.airbnb.backend.service.BookingQueueFullException;
 import com.airbnb.backend.service.BookingService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -16,25 +36,127 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
+    private final BookingIntakeService bookingIntakeService;
+    private final ObjectMapper objectMapper;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, IdempotencyService idempotencyService,
+                             BookingIntakeService bookingIntakeService, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.idempotencyService = idempotencyService;
+        this.bookingIntakeService = bookingIntakeService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    public ResponseEntity<String> addBooking(@RequestBody BookingCreateDTO booking) {
-        bookingService.addBooking(
-                booking.getPropertyId(),
-                booking.getGuestId(),
-                booking.getBookingStart(),
-                booking.getBookingEnd()
-        );
-        return ResponseEntity.ok("Booking added successfully");
+    @Operation(summary = "Create a booking",
+               description = "Send an Idempotency-Key header to make retries safe: a repeated key returns the first response " +
+                             "without creating another booking.")
+    public ResponseEntity<?> addBooking(
+            @RequestBody BookingCreateDTO booking,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String fingerprint = booking.getPropertyId() + "|" + booking.getGuestId() + "|"
+                + booking.getBookingStart() + "|" + booking.getBookingEnd();
+        return idempotencyService.execute("POST /api/bookings", idempotencyKey, fingerprint, () -> {
+            try {
+                bookingService.addBooking(
+                        booking.getPropertyId(),
+                        booking.getGuestId(),
+                        booking.getBookingStart(),
+                        booking.getBookingEnd()
+                );
+            } catch (BookingOverlapException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+            }
+            return ResponseEntity.ok("Booking added successfully");
+        });
+    }
+
+    @PostMapping("/async")
+    @Operation(summary = "Queue a booking",
+               description = "Validates the request, queues it and answers 202 with a ticket; the Location header points at the " +
+                             "status URL. Queued bookings are inserted in batches by background workers. Answers 503 with " +
+                             "Retry-After when the queue is full or the server is shutting down.")
+    public ResponseEntity<BookingIntakeStatusDTO> addBookingAsync(@RequestBody BookingCreateDTO booking) {
+        BookingIntakeStatusDTO ticket;
+        try {
+            ticket = bookingIntakeService.submit(booking);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (BookingOverlapException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (BookingQueueFullException | BookingIntakeStoppedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/bookings/async/" + ticket.getTicketId()))
+                .body(ticket);
+    }
+
+    @GetMapping("/async/{ticketId}")
+    @Operation(summary = "Status of a queued booking",
+               description = "QUEUED, CREATED (with bookingId and price), REJECTED or FAILED (with error). Tickets are kept in " +
+                             "memory for an hour; after a server restart earlier tickets answer 404, and a booking that was " +
+                             "still queued at shutdown may or may not have been created, so check the guest's bookings.")
+    public ResponseEntity<BookingIntakeStatusDTO> getBookingIntakeStatus(@PathVariable String ticketId) {
+        BookingIntakeStatusDTO status = bookingIntakeService.getStatus(ticketId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired ticket");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Create many bookings",
+               description = "Validates dates, properties, guests and overlaps (also between items of the batch) in memory, then inserts " +
+                             "with JDBC batching. Returns one result per item in request order; at most 1000 items per request.")
+    public ResponseEntity<BookingBulkResultDTO> addBookings(@RequestBody List<BookingCreateDTO> bookings) {
+        try {
+            return ResponseEntity.ok(bookingService.addBookings(bookings));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @GetMapping
-    public ResponseEntity<List<BookingDTO>> getAllBookings() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    @Operation(summary = "List bookings page by page",
+               description = "Most recent stay end first. Optional filters: status (completed, active, upcoming), propertyId, guestId " +
+                             "and from/to. Keyset pagination on (Booking_end, ID): pass the returned nextAfterEnd and nextAfterId " +
+                             "as afterEnd and afterId to fetch the next page. limit defaults to 100 and is capped at 1000.")
+    public ResponseEntity<BookingPageDTO> getBookings(@ModelAttribute BookingSearchCriteria criteria) {
+        try {
+            return ResponseEntity.ok(bookingService.listBookings(criteria));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Export bookings",
+               description = "Writes every booking matching the listing filters as newline-delimited JSON while the database cursor is read")
+    public ResponseEntity<StreamingResponseBody> streamBookings(@ModelAttribute BookingSearchCriteria criteria) {
+        try {
+            bookingService.validateCriteria(criteria);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            // Lines are separated by the '\n' written below; Jackson's default root separator is a space
+            generator.setRootValueSeparator(null);
+            bookingService.streamBookings(criteria, booking -> {
+                try {
+                    generator.writeObject(booking);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
     }
 
 
@@ -46,7 +168,11 @@ public class BookingController {
 
     @PutMapping("/{id}")
     public ResponseEntity<String> updateBooking(@PathVariable int id, @RequestBody BookingUpdateDTO booking) {
-        bookingService.updateBooking(id, booking);
+        try {
+            bookingService.updateBooking(id, booking);
+        } catch (BookingOverlapException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
         return ResponseEntity.ok("Booking updated successfully");
     }
 
@@ -4,11 +4,16 @@ import com.airbnb.backend.dto.PropertyDetailsDTO;
 import com.airbnb.backend.service.HostDashboardService;
 import com.airbnb.backend.service.PropertyDetailsService;
 import com.airbnb.backend.service.UserDashboardService;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
@@ -37,7 +42,21 @@ public class CrossDatabaseController {
     }
 
     @GetMapping("/host-info/{hostId}")
-    public ResponseEntity<Map<String, Object>> getHostDashboard(@PathVariable int hostId) {
-        return ResponseEntity.ok(hostDashboardService.getHostDashboard(hostId));
+    @Operation(summary = "Host dashboard",
+               description = "Bookings across all the host's properties in one query, most recent stay end first. Optional from/to " +
+                             "limit bookings and totals to stays touching that window. Pass next_after_end and next_after_id as " +
+                             "afterEnd and afterId for the next page of bookings; limit defaults to 100 and is capped at 1000.")
+    public ResponseEntity<Map<String, Object>> getHostDashboard(
+            @PathVariable int hostId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterEnd,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(hostDashboardService.getHostDashboard(hostId, from, to, afterEnd, afterId, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 }
@@ -1,14 +1,37 @@
 package com.airbnb.backend.controller;
 
+import com.airbnb.backend.dto.AvailablePropertyDTO;
+import com.airbnb.backend.dto.PriceStatsDTO;
+import com.airbnb.backend.dto.PropertyBatchDTO;
 import com.airbnb.backend.dto.PropertyCreateDTO;
 import com.airbnb.backend.dto.PropertyDTO;
+import com.airbnb.backend.dto.PropertyFacetResultDTO;
+import com.airbnb.backend.dto.PropertyImportResultDTO;
+import com.airbnb.backend.dto.PropertyPageDTO;
+import com.airbnb.backend.dto.PropertySearchCriteria;
 import com.airbnb.backend.dto.PropertyUpdateDTO;
+import com.airbnb.backend.index.PropertyFacetIndex;
+import com.airbnb.backend.service.PropertyImportService;
 import com.airbnb.backend.service.PropertyService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/properties")
@@ -16,9 +39,14 @@ import java.util.List;
 public class PropertyController {
 
     private final PropertyService propertyService;
+    private final PropertyImportService propertyImportService;
+    private final ObjectMapper objectMapper;
 
-    public PropertyController(PropertyService propertyService) {
+    public PropertyController(PropertyService propertyService, PropertyImportService propertyImportService,
+                              ObjectMapper objectMapper) {
         this.propertyService = propertyService;
+        this.propertyImportService = propertyImportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -36,6 +64,18 @@ public class PropertyController {
         return ResponseEntity.ok("Property added successfully");
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "Bulk import properties from CSV",
+               description = "Request body in the cleaned_airbnb_data.csv format (header row required; ID and rating columns are ignored). " +
+                             "Returns imported/rejected counts, rows per second and the line number and reason of each rejected row.")
+    public ResponseEntity<PropertyImportResultDTO> importProperties(InputStream csv) {
+        try {
+            return ResponseEntity.ok(propertyImportService.importCsv(csv));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PropertyDTO> getPropertyById(@PathVariable int id) {
         PropertyDTO property = propertyService.getPropertyById(id);
@@ -57,9 +97,144 @@ public class PropertyController {
     }
 
 
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "Similar properties",
+               description = "The k properties in the same city closest in price, capacity, bedrooms, room type and distances")
+    public ResponseEntity<List<PropertyDTO>> getSimilarProperties(@PathVariable int id, @RequestParam(defaultValue = "10") int k) {
+        try {
+            return ResponseEntity.ok(propertyService.getSimilarProperties(id, k));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    @GetMapping("/nearest")
+    @Operation(summary = "Properties closest to the center or metro",
+               description = "Returns the k properties in a city with the smallest center (by=center) or metro (by=metro) distance, " +
+                             "optionally limited by maxPrice and minCapacity, nearest first")
+    public ResponseEntity<List<PropertyDTO>> getNearestProperties(
+            @RequestParam String city,
+            @RequestParam(defaultValue = "center") String by,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer minCapacity) {
+        boolean byMetro = "metro".equalsIgnoreCase(by);
+        return ResponseEntity.ok(propertyService.getNearestProperties(city, byMetro, k, maxPrice, minCapacity));
+    }
+
+    @GetMapping("/available")
+    @Operation(summary = "Properties available between two dates",
+               description = "Properties in a city with no booking overlapping [from, to), optionally limited by nightly maxPrice " +
+                             "and minCapacity, cheapest first. stayPrice is nights x price, as AddBooking charges it.")
+    public ResponseEntity<List<AvailablePropertyDTO>> getAvailableProperties(
+            @RequestParam String city,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(propertyService.getAvailableProperties(city, from, to, maxPrice, minCapacity, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/price-stats")
+    @Operation(summary = "Nightly price distribution",
+               description = "p10, p50 and p90 price per city and room type, accurate to within 1%. " +
+                             "city and roomType optionally restrict the groups returned.")
+    public ResponseEntity<List<PriceStatsDTO>> getPriceStats(
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String roomType) {
+        try {
+            return ResponseEntity.ok(propertyService.getPriceStats(city, roomType));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Faceted property search",
+               description = "Each filter may be repeated to select several values. Returns matching property IDs and, per facet, " +
+                             "the result count for every value given the other facets' filters.")
+    public ResponseEntity<PropertyFacetResultDTO> getFacets(
+            @RequestParam(required = false) List<String> city,
+            @RequestParam(required = false) List<String> roomType,
+            @RequestParam(required = false) List<String> bedrooms,
+            @RequestParam(required = false) List<String> priceRange,
+            @RequestParam(defaultValue = "1000") int limit) {
+        Map<String, List<String>> filters = new HashMap<>();
+        filters.put(PropertyFacetIndex.CITY, city);
+        filters.put(PropertyFacetIndex.ROOM_TYPE, roomType);
+        filters.put(PropertyFacetIndex.BEDROOMS, bedrooms);
+        filters.put(PropertyFacetIndex.PRICE_RANGE, priceRange);
+
+        try {
+            return ResponseEntity.ok(propertyService.getFacets(filters, limit));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search properties with optional ranges",
+               description = "Every filter is optional: city, roomType, min/max price, capacity, bedrooms, centerDistance and metroDistance. " +
+                             "sortBy is price, center_distance or metro_distance; limit is capped at 1000.")
+    public ResponseEntity<List<PropertyDTO>> searchProperties(@ModelAttribute PropertySearchCriteria criteria) {
+        return ResponseEntity.ok(propertyService.searchProperties(criteria));
+    }
+
     @GetMapping
-    public ResponseEntity<List<PropertyDTO>> getAllProperties() {
-        return ResponseEntity.ok(propertyService.getAllProperties());
+    @Operation(summary = "List properties page by page",
+               description = "Keyset pagination on property ID. Pass the returned nextAfterId as afterId to fetch the next page.")
+    public ResponseEntity<PropertyPageDTO> getProperties(
+            @RequestParam(defaultValue = "0") int afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(propertyService.getPropertiesPage(afterId, limit));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get several properties by ID",
+               description = "Returns the properties in request order plus the IDs that do not exist, using one database query")
+    public ResponseEntity<PropertyBatchDTO> getPropertiesByIds(@RequestParam List<Integer> ids) {
+        return getPropertyBatch(ids);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Get several properties by ID (POST)",
+               description = "Same as GET /api/properties?ids=... for ID lists too long for a query string")
+    public ResponseEntity<PropertyBatchDTO> getPropertiesByIdsPost(@RequestBody List<Integer> ids) {
+        return getPropertyBatch(ids);
+    }
+
+    private ResponseEntity<PropertyBatchDTO> getPropertyBatch(List<Integer> ids) {
+        try {
+            return ResponseEntity.ok(propertyService.getPropertiesByIds(ids));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream all properties",
+               description = "Writes every property as newline-delimited JSON while the database cursor is read")
+    public ResponseEntity<StreamingResponseBody> streamAllProperties() {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            // Lines are separated by the '\n' written below; Jackson's default root separator is a space
+            generator.setRootValueSeparator(null);
+            propertyService.streamAllProperties(property -> {
+                try {
+                    generator.writeObject(property);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
     }
 
 
@@ -27,12 +27,26 @@ public class PropertyRatingController {
     
     @PostMapping("/recalculate-all")
     @Operation(summary = "Recalculate all property ratings", 
-               description = "Batch recalculate ratings for all properties")
+               description = "Batch recalculate ratings for all properties with server-side $group + $merge pipelines over property_id ranges run in parallel")
     public ResponseEntity<Map<String, Object>> recalculateAllRatings() {
         Map<String, Object> result = propertyRatingService.recalculateAllRatings();
         return ResponseEntity.ok(result);
     }
     
+    @GetMapping("/recalculate-all/progress")
+    @Operation(summary = "Recalculation progress", description = "Ranges completed by the running or last recalculate-all")
+    public ResponseEntity<Map<String, Object>> getRecalculationProgress() {
+        return ResponseEntity.ok(propertyRatingService.getRecalculationProgress());
+    }
+    
+    @PostMapping("/reconcile")
+    @Operation(summary = "Reconcile property ratings",
+               description = "Compare the stored rating sums and counts with the reviews collection and correct properties that drifted")
+    public ResponseEntity<Map<String, Object>> reconcileRatings() {
+        Map<String, Object> result = propertyRatingService.reconcileRatings();
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/{propertyId}")
     @Operation(summary = "Get property rating", description = "Retrieve current ratings for a specific property")
     public ResponseEntity<Map<String, Object>> getPropertyRating(@PathVariable Integer propertyId) {
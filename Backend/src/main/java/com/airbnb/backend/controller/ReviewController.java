@@ -1,10 +1,14 @@
 package com.airbnb.backend.controller;
 
+import com.airbnb.backend.idempotency.IdempotencyService;
 import com.airbnb.backend.service.ReviewService;
+import com.airbnb.backend.service.ReviewSnapshotService;
 import com.airbnb.backend.repository.BookingRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,50 +25,72 @@ public class ReviewController {
     
     @Autowired
     private BookingRepository bookingRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ReviewSnapshotService reviewSnapshotService;
     
     @GetMapping("/property/{propertyId}")
     @Operation(summary = "Get reviews for a property", 
-               description = "Retrieve reviews for a specific property with pagination and sorting options using MongoDB aggregation pipelines")
+               description = "Retrieve reviews for a specific property with pagination and sorting options using MongoDB aggregation pipelines. " +
+                             "Pass next_page_token from the response as pageToken (with the same sortBy/sortOrder) for the next page; " +
+                             "skip is only used without a token.")
     public ResponseEntity<Map<String, Object>> getPropertyReviews(
             @PathVariable Integer propertyId,
             @RequestParam(defaultValue = "10") Integer limit,
             @RequestParam(defaultValue = "0") Integer skip,
+            @RequestParam(required = false) String pageToken,
             @RequestParam(defaultValue = "created_at") String sortBy,
             @RequestParam(defaultValue = "desc") String sortOrder) {
-        Map<String, Object> result = reviewService.getPropertyReviews(propertyId, limit, skip, sortBy, sortOrder);
+        Map<String, Object> result = reviewService.getPropertyReviews(propertyId, limit, skip, pageToken, sortBy, sortOrder);
         return ResponseEntity.ok(result);
     }
     
     
     @PostMapping("/add")
     @Operation(summary = "Add review and update property rating", 
-               description = "Add a review with MySQL stored procedure validation and automatically trigger MongoDB aggregation pipeline rating recalculation.")
-    public ResponseEntity<Map<String, Object>> addReview(
+               description = "Add a review with MySQL stored procedure validation and automatically trigger MongoDB aggregation pipeline rating recalculation. " +
+                             "An Idempotency-Key header makes retries return the first response instead of adding a duplicate review. " +
+                             "Answers 503 with Retry-After when MySQL or MongoDB cannot be reached.")
+    public ResponseEntity<?> addReview(
             @RequestParam Integer propertyId,
             @RequestParam Integer bookingId,
             @RequestParam Integer cleanlinessRating,
             @RequestParam Integer satisfactionRating,
-            @RequestParam String comment) {
-        Map<String, Object> result = reviewService.addReview(propertyId, bookingId, cleanlinessRating, satisfactionRating, comment);
-        
-        if (Boolean.TRUE.equals(result.get("success"))) {
-            return ResponseEntity.ok(result);
-        } else {
-            return ResponseEntity.badRequest().body(result);
-        }
+            @RequestParam String comment,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String fingerprint = propertyId + "|" + bookingId + "|" + cleanlinessRating + "|" + satisfactionRating + "|" + comment;
+        return idempotencyService.execute("POST /api/reviews/add", idempotencyKey, fingerprint, () -> {
+            Map<String, Object> result = reviewService.addReview(propertyId, bookingId, cleanlinessRating, satisfactionRating, comment);
+
+            if (Boolean.TRUE.equals(result.get("success"))) {
+                return ResponseEntity.ok(result);
+            } else if (Boolean.TRUE.equals(result.get("retryable"))) {
+                // A 5xx is not stored under the Idempotency-Key, so a retry runs the request again
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(result);
+            } else {
+                return ResponseEntity.badRequest().body(result);
+            }
+        });
     }
     
     @GetMapping("/all")
     @Operation(summary = "Get all reviews with pagination", 
-               description = "Retrieve all reviews with advanced filtering and sorting options using MongoDB aggregation pipelines")
+               description = "Retrieve all reviews with advanced filtering and sorting options using MongoDB aggregation pipelines. " +
+                             "Pass next_page_token from the response as pageToken for the next page.")
     public ResponseEntity<Map<String, Object>> getAllReviews(
             @RequestParam(defaultValue = "20") Integer limit,
             @RequestParam(defaultValue = "0") Integer skip,
+            @RequestParam(required = false) String pageToken,
             @RequestParam(defaultValue = "created_at") String sortBy,
             @RequestParam(defaultValue = "desc") String sortOrder,
             @RequestParam(required = false) Integer minRating,
             @RequestParam(required = false) Integer maxRating) {
-        Map<String, Object> result = reviewService.getAllReviews(limit, skip, sortBy, sortOrder, minRating, maxRating);
+        Map<String, Object> result = reviewService.getAllReviews(limit, skip, pageToken, sortBy, sortOrder, minRating, maxRating);
         return ResponseEntity.ok(result);
     }
     
@@ -86,9 +112,31 @@ public class ReviewController {
     
     @GetMapping("/property/{propertyId}/with-guest-info")
     @Operation(summary = "Get reviews with cross-database guest information", 
-               description = "Demonstrates cross-database data transformation: MongoDB reviews enriched with MySQL guest data via stored procedures")
-    public ResponseEntity<Map<String, Object>> getReviewsWithGuestInfo(@PathVariable Integer propertyId) {
-        Map<String, Object> result = reviewService.getReviewsWithGuestInfo(propertyId);
+               description = "Guest name, city and room type come from the snapshot embedded in each review, so the page is a " +
+                             "single MongoDB query; reviews without a snapshot are enriched from MySQL. " +
+                             "includeBookingDetails=true adds the guest's email and the booking price, read from MySQL.")
+    public ResponseEntity<Map<String, Object>> getReviewsWithGuestInfo(
+            @PathVariable Integer propertyId,
+            @RequestParam(defaultValue = "false") boolean includeBookingDetails) {
+        Map<String, Object> result = reviewService.getReviewsWithGuestInfo(propertyId, includeBookingDetails);
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping("/guest-snapshots/backfill")
+    @Operation(summary = "Backfill guest snapshots into reviews",
+               description = "Embeds guest name and the property's city and room type into reviews written " +
+                             "before snapshots existed, in parallel batches with one MySQL call per batch")
+    public ResponseEntity<Map<String, Object>> backfillGuestSnapshots() {
+        Map<String, Object> result = reviewSnapshotService.backfill();
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping("/guest-snapshots/resync")
+    @Operation(summary = "Re-sync embedded guest names",
+               description = "Sets the guest name embedded in reviews to the guest's current name in Users, " +
+                             "in batches with one MySQL call and one bulk write each. Also runs periodically.")
+    public ResponseEntity<Map<String, Object>> resyncGuestNames() {
+        Map<String, Object> result = reviewSnapshotService.resyncGuestNames();
         return ResponseEntity.ok(result);
     }
     
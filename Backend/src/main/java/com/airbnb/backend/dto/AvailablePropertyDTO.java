@@ -0,0 +1,41 @@
+package com.airbnb.backend.dto;
+
+import java.math.BigDecimal;
+
+public class AvailablePropertyDTO {
+    private PropertyDTO property;
+    private int nights;
+    private BigDecimal stayPrice;
+
+    public AvailablePropertyDTO() {}
+
+    public AvailablePropertyDTO(PropertyDTO property, int nights, BigDecimal stayPrice) {
+        this.property = property;
+        this.nights = nights;
+        this.stayPrice = stayPrice;
+    }
+
+    public PropertyDTO getProperty() {
+        return property;
+    }
+
+    public void setProperty(PropertyDTO property) {
+        this.property = property;
+    }
+
+    public int getNights() {
+        return nights;
+    }
+
+    public void setNights(int nights) {
+        this.nights = nights;
+    }
+
+    public BigDecimal getStayPrice() {
+        return stayPrice;
+    }
+
+    public void setStayPrice(BigDecimal stayPrice) {
+        this.stayPrice = stayPrice;
+    }
+}
@@ -0,0 +1,73 @@
+package com.airbnb.backend.dto;
+
+import java.math.BigDecimal;
+
+public class BookingBulkItemResultDTO {
+
+    /** Why an item was not created */
+    public enum Reason {
+        INVALID_REQUEST,
+        PROPERTY_NOT_FOUND,
+        GUEST_NOT_FOUND,
+        OVERLAPS_EXISTING_BOOKING,
+        OVERLAPS_EARLIER_ITEM,
+        INSERT_FAILED
+    }
+
+    private int index;
+    private boolean success;
+    private Integer bookingId;
+    private BigDecimal price;
+    private Reason reason;
+    private String error;
+
+    public BookingBulkItemResultDTO() {}
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public Integer getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(Integer bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public void setReason(Reason reason) {
+        this.reason = reason;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
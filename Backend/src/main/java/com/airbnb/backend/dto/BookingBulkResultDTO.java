@@ -0,0 +1,44 @@
+package com.airbnb.backend.dto;
+
+import java.util.List;
+
+public class BookingBulkResultDTO {
+    private int created;
+    private int rejected;
+    private long elapsedMillis;
+    private List<BookingBulkItemResultDTO> results;
+
+    public BookingBulkResultDTO() {}
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<BookingBulkItemResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BookingBulkItemResultDTO> results) {
+        this.results = results;
+    }
+}
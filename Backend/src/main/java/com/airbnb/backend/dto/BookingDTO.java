@@ -10,6 +10,7 @@ public class BookingDTO {
     private BigDecimal price;
     private LocalDate bookingStart;
     private LocalDate bookingEnd;
+    private String status;
 
     public BookingDTO() {}
 
@@ -60,4 +61,12 @@ public class BookingDTO {
     public void setBookingEnd(LocalDate bookingEnd) {
         this.bookingEnd = bookingEnd;
     }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
 }
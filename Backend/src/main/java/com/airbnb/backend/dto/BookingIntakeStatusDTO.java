@@ -0,0 +1,62 @@
+package com.airbnb.backend.dto;
+
+import java.math.BigDecimal;
+
+public class BookingIntakeStatusDTO {
+    private String ticketId;
+    private String status;
+    private Integer bookingId;
+    private BigDecimal price;
+    private String error;
+    private Long waitMillis;
+
+    public BookingIntakeStatusDTO() {}
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(Integer bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Long getWaitMillis() {
+        return waitMillis;
+    }
+
+    public void setWaitMillis(Long waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+}
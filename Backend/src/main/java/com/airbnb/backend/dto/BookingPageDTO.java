@@ -0,0 +1,45 @@
+package com.airbnb.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class BookingPageDTO {
+    private List<BookingDTO> bookings;
+    private LocalDate nextAfterEnd;
+    private Integer nextAfterId;
+    private int limit;
+
+    public BookingPageDTO() {}
+
+    public List<BookingDTO> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<BookingDTO> bookings) {
+        this.bookings = bookings;
+    }
+
+    public LocalDate getNextAfterEnd() {
+        return nextAfterEnd;
+    }
+
+    public void setNextAfterEnd(LocalDate nextAfterEnd) {
+        this.nextAfterEnd = nextAfterEnd;
+    }
+
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Integer nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
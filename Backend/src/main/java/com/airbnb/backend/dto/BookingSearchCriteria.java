@@ -0,0 +1,49 @@
+package com.airbnb.backend.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters and keyset position for the booking listing; any field left null is not applied.
+ * status is completed, active or upcoming; from/to keep bookings whose stay touches [from, to].
+ */
+public class BookingSearchCriteria {
+    private String status;
+    private Integer propertyId;
+    private Integer guestId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate afterEnd;
+    private Integer afterId;
+    private Integer limit;
+
+    public BookingSearchCriteria() {}
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getPropertyId() { return propertyId; }
+    public void setPropertyId(Integer propertyId) { this.propertyId = propertyId; }
+
+    public Integer getGuestId() { return guestId; }
+    public void setGuestId(Integer guestId) { this.guestId = guestId; }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public LocalDate getAfterEnd() { return afterEnd; }
+    public void setAfterEnd(LocalDate afterEnd) { this.afterEnd = afterEnd; }
+
+    public Integer getAfterId() { return afterId; }
+    public void setAfterId(Integer afterId) { this.afterId = afterId; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
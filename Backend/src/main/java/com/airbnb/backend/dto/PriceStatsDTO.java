@@ -0,0 +1,62 @@
+package com.airbnb.backend.dto;
+
+import java.math.BigDecimal;
+
+public class PriceStatsDTO {
+    private String city;
+    private String roomType;
+    private long count;
+    private BigDecimal p10;
+    private BigDecimal p50;
+    private BigDecimal p90;
+
+    public PriceStatsDTO() {}
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public void setRoomType(String roomType) {
+        this.roomType = roomType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getP10() {
+        return p10;
+    }
+
+    public void setP10(BigDecimal p10) {
+        this.p10 = p10;
+    }
+
+    public BigDecimal getP50() {
+        return p50;
+    }
+
+    public void setP50(BigDecimal p50) {
+        this.p50 = p50;
+    }
+
+    public BigDecimal getP90() {
+        return p90;
+    }
+
+    public void setP90(BigDecimal p90) {
+        this.p90 = p90;
+    }
+}
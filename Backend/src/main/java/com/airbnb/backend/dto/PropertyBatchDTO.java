@@ -0,0 +1,26 @@
+package com.airbnb.backend.dto;
+
+import java.util.List;
+
+public class PropertyBatchDTO {
+    private List<PropertyDTO> properties;
+    private List<Integer> missingIds;
+
+    public PropertyBatchDTO() {}
+
+    public List<PropertyDTO> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(List<PropertyDTO> properties) {
+        this.properties = properties;
+    }
+
+    public List<Integer> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Integer> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
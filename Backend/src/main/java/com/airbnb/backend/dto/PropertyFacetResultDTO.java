@@ -0,0 +1,36 @@
+package com.airbnb.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class PropertyFacetResultDTO {
+    private int totalMatches;
+    private List<Integer> propertyIds;
+    private Map<String, Map<String, Integer>> facets;
+
+    public PropertyFacetResultDTO() {}
+
+    public int getTotalMatches() {
+        return totalMatches;
+    }
+
+    public void setTotalMatches(int totalMatches) {
+        this.totalMatches = totalMatches;
+    }
+
+    public List<Integer> getPropertyIds() {
+        return propertyIds;
+    }
+
+    public void setPropertyIds(List<Integer> propertyIds) {
+        this.propertyIds = propertyIds;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Integer>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,29 @@
+package com.airbnb.backend.dto;
+
+public class PropertyImportRejectDTO {
+    private long line;
+    private String reason;
+
+    public PropertyImportRejectDTO() {}
+
+    public PropertyImportRejectDTO(long line, String reason) {
+        this.line = line;
+        this.reason = reason;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
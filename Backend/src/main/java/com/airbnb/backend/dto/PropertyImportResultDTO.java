@@ -0,0 +1,62 @@
+package com.airbnb.backend.dto;
+
+import java.util.List;
+
+public class PropertyImportResultDTO {
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private List<PropertyImportRejectDTO> rejects;
+
+    public PropertyImportResultDTO() {}
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<PropertyImportRejectDTO> getRejects() {
+        return rejects;
+    }
+
+    public void setRejects(List<PropertyImportRejectDTO> rejects) {
+        this.rejects = rejects;
+    }
+}
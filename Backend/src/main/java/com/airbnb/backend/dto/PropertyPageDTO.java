@@ -0,0 +1,35 @@
+package com.airbnb.backend.dto;
+
+import java.util.List;
+
+public class PropertyPageDTO {
+    private List<PropertyDTO> properties;
+    private Integer nextAfterId;
+    private int limit;
+
+    public PropertyPageDTO() {}
+
+    public List<PropertyDTO> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(List<PropertyDTO> properties) {
+        this.properties = properties;
+    }
+
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Integer nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
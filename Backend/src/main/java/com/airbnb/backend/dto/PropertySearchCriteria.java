@@ -0,0 +1,71 @@
+package com.airbnb.backend.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional filters for property search; any field left null is not applied
+ */
+public class PropertySearchCriteria {
+    private String city;
+    private String roomType;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minCapacity;
+    private Integer maxCapacity;
+    private Integer minBedrooms;
+    private Integer maxBedrooms;
+    private BigDecimal minCenterDistance;
+    private BigDecimal maxCenterDistance;
+    private BigDecimal minMetroDistance;
+    private BigDecimal maxMetroDistance;
+    private String sortBy;
+    private String sortOrder;
+    private Integer limit;
+
+    public PropertySearchCriteria() {}
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public String getRoomType() { return roomType; }
+    public void setRoomType(String roomType) { this.roomType = roomType; }
+
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+    public Integer getMinCapacity() { return minCapacity; }
+    public void setMinCapacity(Integer minCapacity) { this.minCapacity = minCapacity; }
+
+    public Integer getMaxCapacity() { return maxCapacity; }
+    public void setMaxCapacity(Integer maxCapacity) { this.maxCapacity = maxCapacity; }
+
+    public Integer getMinBedrooms() { return minBedrooms; }
+    public void setMinBedrooms(Integer minBedrooms) { this.minBedrooms = minBedrooms; }
+
+    public Integer getMaxBedrooms() { return maxBedrooms; }
+    public void setMaxBedrooms(Integer maxBedrooms) { this.maxBedrooms = maxBedrooms; }
+
+    public BigDecimal getMinCenterDistance() { return minCenterDistance; }
+    public void setMinCenterDistance(BigDecimal minCenterDistance) { this.minCenterDistance = minCenterDistance; }
+
+    public BigDecimal getMaxCenterDistance() { return maxCenterDistance; }
+    public void setMaxCenterDistance(BigDecimal maxCenterDistance) { this.maxCenterDistance = maxCenterDistance; }
+
+    public BigDecimal getMinMetroDistance() { return minMetroDistance; }
+    public void setMinMetroDistance(BigDecimal minMetroDistance) { this.minMetroDistance = minMetroDistance; }
+
+    public BigDecimal getMaxMetroDistance() { return maxMetroDistance; }
+    public void setMaxMetroDistance(BigDecimal maxMetroDistance) { this.maxMetroDistance = maxMetroDistance; }
+
+    public String getSortBy() { return sortBy; }
+    public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+
+    public String getSortOrder() { return sortOrder; }
+    public void setSortOrder(String sortOrder) { this.sortOrder = sortOrder; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
@@ -0,0 +1,89 @@
+package com.airbnb.backend.dto;
+
+import java.math.BigDecimal;
+
+public class RevenueRollupDTO {
+    private String city;
+    private String roomType;
+    private String month;
+    private BigDecimal revenue;
+    private long nightsSold;
+    private long bookings;
+    private int listings;
+    private BigDecimal averageDailyRate;
+    private BigDecimal occupancy;
+
+    public RevenueRollupDTO() {}
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public void setRoomType(String roomType) {
+        this.roomType = roomType;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getNightsSold() {
+        return nightsSold;
+    }
+
+    public void setNightsSold(long nightsSold) {
+        this.nightsSold = nightsSold;
+    }
+
+    public long getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(long bookings) {
+        this.bookings = bookings;
+    }
+
+    public int getListings() {
+        return listings;
+    }
+
+    public void setListings(int listings) {
+        this.listings = listings;
+    }
+
+    public BigDecimal getAverageDailyRate() {
+        return averageDailyRate;
+    }
+
+    public void setAverageDailyRate(BigDecimal averageDailyRate) {
+        this.averageDailyRate = averageDailyRate;
+    }
+
+    public BigDecimal getOccupancy() {
+        return occupancy;
+    }
+
+    public void setOccupancy(BigDecimal occupancy) {
+        this.occupancy = occupancy;
+    }
+}
@@ -0,0 +1,42 @@
+package com.airbnb.backend.dto;
+
+public class RevenueRollupRebuildDTO {
+    private long bookings;
+    private int cells;
+    private int slices;
+    private long elapsedMillis;
+
+    public RevenueRollupRebuildDTO() {}
+
+    public long getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(long bookings) {
+        this.bookings = bookings;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    public void setCells(int cells) {
+        this.cells = cells;
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+
+    public void setSlices(int slices) {
+        this.slices = slices;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,213 @@
+package com.airbnb.backend.idempotency;
+
+import com.airbnb.backend.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write request at most once per Idempotency-Key.
+ * Completed responses are kept in a bounded TTL cache, backed by the idempotency_keys Mongo collection so
+ * that retries still hit after a restart or on another instance. While the first request with a key is
+ * running, duplicates wait for its result instead of executing. 5xx responses and exceptions are not
+ * stored, so a retry after a server error runs the request again.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private Cache<String, StoredResponse> idempotencyCache;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    private volatile boolean ttlIndexVerified;
+
+    /**
+     * The Mongo TTL index must expire entries after the same time as the in-memory cache
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyTtlIndexOnStartup() {
+        verifyTtlIndex();
+    }
+
+    @Scheduled(initialDelayString = "${property-index.retry-interval-ms:60000}",
+               fixedDelayString = "${property-index.retry-interval-ms:60000}")
+    public void retryTtlIndexIfNotVerified() {
+        if (!ttlIndexVerified) {
+            verifyTtlIndex();
+        }
+    }
+
+    private void verifyTtlIndex() {
+        long ttlSeconds = TimeUnit.HOURS.toSeconds(ttlHours);
+        try {
+            Long previous = idempotencyKeyRepository.ensureTtlIndex(ttlSeconds);
+            if (previous == null) {
+                log.info("Created the idempotency_keys TTL index ({} s)", ttlSeconds);
+            } else if (previous != ttlSeconds) {
+                log.info("Changed the idempotency_keys TTL index from {} s to {} s", previous, ttlSeconds);
+            }
+            ttlIndexVerified = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not verify the idempotency_keys TTL index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the action, or replays the response stored for the key.
+     *
+     * @param scope       endpoint the key belongs to, so one key can be reused across endpoints
+     * @param key         Idempotency-Key header; without one the action simply runs
+     * @param fingerprint request content; reusing a key for a different request is rejected with 422
+     */
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ':' + key;
+
+        while (true) {
+            StoredResponse stored = idempotencyCache.getIfPresent(id);
+            if (stored != null) {
+                return replay(stored, fingerprint);
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> first = inFlight.putIfAbsent(id, mine);
+            if (first != null) {
+                StoredResponse response = awaitFirst(first);
+                if (response == null) {
+                    continue; // the first attempt failed; run it again ourselves
+                }
+                return replay(response, fingerprint);
+            }
+
+            try {
+                StoredResponse durable = findDurable(id);
+                if (durable != null) {
+                    idempotencyCache.put(id, durable);
+                    mine.complete(durable);
+                    return replay(durable, fingerprint);
+                }
+
+                ResponseEntity<?> result = action.get();
+                StoredResponse response = toStored(result, fingerprint);
+                if (response.getStatus() < 500) {
+                    saveDurable(id, response);
+                    idempotencyCache.put(id, response);
+                }
+                mine.complete(response);
+                return result;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(id, mine);
+            }
+        }
+    }
+
+    /** Result of the in-flight request with the same key, or null if it failed */
+    private StoredResponse awaitFirst(CompletableFuture<StoredResponse> first) {
+        try {
+            return first.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the original request");
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (stored.getFingerprint() != null && !stored.getFingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+        }
+        return ResponseEntity.status(stored.getStatus())
+                .contentType(MediaType.parseMediaType(stored.getContentType()))
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.getBody());
+    }
+
+    private StoredResponse toStored(ResponseEntity<?> result, String fingerprint) {
+        Object body = result.getBody();
+        if (body == null || body instanceof String) {
+            return new StoredResponse(fingerprint, result.getStatusCode().value(), MediaType.TEXT_PLAIN_VALUE,
+                    body == null ? "" : (String) body);
+        }
+        try {
+            return new StoredResponse(fingerprint, result.getStatusCode().value(), MediaType.APPLICATION_JSON_VALUE,
+                    objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing response for " + HEADER, e);
+        }
+    }
+
+    // The durable store is a fallback: if Mongo is unavailable the in-memory cache still deduplicates
+    private StoredResponse findDurable(String id) {
+        try {
+            Document document = idempotencyKeyRepository.find(id);
+            if (document == null) {
+                return null;
+            }
+            return new StoredResponse(document.getString("fingerprint"), document.getInteger("status"),
+                    document.getString("content_type"), document.getString("body"));
+        } catch (RuntimeException e) {
+            log.warn("Could not read idempotency key from MongoDB: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveDurable(String id, StoredResponse response) {
+        try {
+            idempotencyKeyRepository.save(id, response.getFingerprint(), response.getStatus(),
+                    response.getContentType(), response.getBody());
+        } catch (RuntimeException e) {
+            log.warn("Could not store idempotency key in MongoDB: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.airbnb.backend.idempotency;
+
+/**
+ * Completed response of an idempotent request, kept so that retries with the same key can be answered
+ * without running the request again
+ */
+public class StoredResponse {
+
+    private final String fingerprint;
+    private final int status;
+    private final String contentType;
+    private final String body;
+
+    public StoredResponse(String fingerprint, int status, String contentType, String body) {
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public String getFingerprint() { return fingerprint; }
+    public int getStatus() { return status; }
+    public String getContentType() { return contentType; }
+    public String getBody() { return body; }
+}
@@ -0,0 +1,47 @@
+package com.airbnb.backend.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between the DECIMAL(x,2) columns of Properties and the scaled integers the indexes store.
+ */
+final class FixedPoint {
+
+    /** Stored for NULL distances so that no "distance <= x" predicate matches, as in SQL */
+    static final int NULL_DISTANCE = Integer.MAX_VALUE;
+
+    /** Stored for NULL bedroom counts */
+    static final int NULL_INT = Integer.MIN_VALUE;
+
+    private FixedPoint() {}
+
+    static long toCents(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    static int toHundredths(BigDecimal distance) {
+        return distance == null ? NULL_DISTANCE : (int) toCents(distance);
+    }
+
+    static BigDecimal fromHundredths(int hundredths) {
+        return hundredths == NULL_DISTANCE ? null : BigDecimal.valueOf(hundredths, 2);
+    }
+
+    /** Upper bound supplied as a float request parameter, rounded to two decimals to drop float noise */
+    static long boundToHundredths(double bound) {
+        return Math.round(bound * 100);
+    }
+
+    static int toNullableInt(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    static Integer fromNullableInt(int value) {
+        return value == NULL_INT ? null : value;
+    }
+}
@@ -0,0 +1,219 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PriceStatsDTO;
+import com.airbnb.backend.dto.PropertyDTO;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Nightly price quantiles per (city, room type).
+ * Each group keeps a log-bucketed histogram (the DDSketch layout): bucket i counts prices in
+ * (gamma^(i-1), gamma^i], so any quantile is reported within {@link #RELATIVE_ACCURACY} of the true
+ * value. Unlike t-digest or KLL the buckets are plain counters, so a price change on updateProperty
+ * is an exact decrement of the old bucket. Prices from 1 to 100 000 need about 580 buckets (~2 KB).
+ * The p10/p50/p90 answer of every group is recomputed on write, so reads are a map lookup.
+ */
+@Component
+public class PriceDistributionIndex implements PropertyIndex {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    private final Map<String, PriceSketch> sketches = new HashMap<>();
+    private final Map<Integer, Slot> slotById = new HashMap<>();
+    private volatile Map<String, PriceStatsDTO> stats = Map.of();
+    private volatile boolean loaded;
+
+    @Override
+    public synchronized void load(List<PropertyDTO> properties) {
+        sketches.clear();
+        slotById.clear();
+        for (PropertyDTO property : properties) {
+            add(property);
+        }
+
+        Map<String, PriceStatsDTO> fresh = new HashMap<>();
+        sketches.forEach((group, sketch) -> fresh.put(group, sketch.stats()));
+        stats = fresh;
+        loaded = true;
+    }
+
+    @Override
+    public synchronized void upsert(PropertyDTO property) {
+        Map<String, PriceStatsDTO> next = new HashMap<>(stats);
+        Slot previous = slotById.get(property.getId());
+        if (previous != null) {
+            removeFrom(previous, next);
+        }
+        Slot slot = add(property);
+        next.put(slot.group, sketches.get(slot.group).stats());
+        stats = next;
+    }
+
+    @Override
+    public synchronized void remove(int propertyId) {
+        Slot previous = slotById.remove(propertyId);
+        if (previous == null) {
+            return;
+        }
+        Map<String, PriceStatsDTO> next = new HashMap<>(stats);
+        removeFrom(previous, next);
+        stats = next;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Price quantiles of every (city, room type) group, optionally restricted to one city and/or
+     * room type (case-insensitive), ordered by city then room type
+     */
+    public List<PriceStatsDTO> priceStats(String city, String roomType) {
+        List<PriceStatsDTO> result = new ArrayList<>();
+        for (PriceStatsDTO group : stats.values()) {
+            if ((city == null || group.getCity().equalsIgnoreCase(city))
+                    && (roomType == null || group.getRoomType().equalsIgnoreCase(roomType))) {
+                result.add(group);
+            }
+        }
+        result.sort(Comparator.comparing(PriceStatsDTO::getCity, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(PriceStatsDTO::getRoomType, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    private Slot add(PropertyDTO property) {
+        String group = groupKey(property.getCity(), property.getRoomType());
+        PriceSketch sketch = sketches.computeIfAbsent(group,
+                k -> new PriceSketch(property.getCity(), property.getRoomType()));
+        Slot slot = new Slot(group, sketch.add(property.getPrice().doubleValue()));
+        slotById.put(property.getId(), slot);
+        return slot;
+    }
+
+    private void removeFrom(Slot slot, Map<String, PriceStatsDTO> next) {
+        PriceSketch sketch = sketches.get(slot.group);
+        sketch.remove(slot.bucket);
+        if (sketch.count == 0) {
+            sketches.remove(slot.group);
+            next.remove(slot.group);
+        } else {
+            next.put(slot.group, sketch.stats());
+        }
+    }
+
+    // City and room type comparisons in MySQL follow the case-insensitive column collation
+    private static String groupKey(String city, String roomType) {
+        return (city == null ? "" : city.toLowerCase(Locale.ROOT)) + '\u0000'
+                + (roomType == null ? "" : roomType.toLowerCase(Locale.ROOT));
+    }
+
+    /** Which group and bucket a property was counted in, so an update can take it out again */
+    private static final class Slot {
+
+        final String group;
+        final int bucket;
+
+        Slot(String group, int bucket) {
+            this.group = group;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * Log-bucketed price histogram over a dense counter array that grows to cover the buckets in use
+     */
+    static final class PriceSketch {
+
+        private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+        private static final double LOG_GAMMA = Math.log(GAMMA);
+        // Prices below 1 are counted as 1; nightly prices are never that low in practice
+        private static final double MIN_PRICE = 1;
+
+        private final String city;
+        private final String roomType;
+        private int[] counts = new int[0];
+        private int offset;
+        private long count;
+
+        PriceSketch(String city, String roomType) {
+            this.city = city;
+            this.roomType = roomType;
+        }
+
+        /** Counts the price and returns its bucket */
+        int add(double price) {
+            int bucket = bucketOf(price);
+            ensureCapacity(bucket);
+            counts[bucket - offset]++;
+            count++;
+            return bucket;
+        }
+
+        void remove(int bucket) {
+            counts[bucket - offset]--;
+            count--;
+        }
+
+        /** Value of the bucket holding the given rank, for q in [0, 1] */
+        double quantile(double q) {
+            long rank = (long) Math.floor(q * (count - 1));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return valueOf(i + offset);
+                }
+            }
+            return valueOf(offset + counts.length - 1);
+        }
+
+        PriceStatsDTO stats() {
+            PriceStatsDTO stats = new PriceStatsDTO();
+            stats.setCity(city);
+            stats.setRoomType(roomType);
+            stats.setCount(count);
+            stats.setP10(price(quantile(0.10)));
+            stats.setP50(price(quantile(0.50)));
+            stats.setP90(price(quantile(0.90)));
+            return stats;
+        }
+
+        static int bucketOf(double price) {
+            return (int) Math.ceil(Math.log(Math.max(price, MIN_PRICE)) / LOG_GAMMA);
+        }
+
+        /** Midpoint of the bucket in relative terms, so the error is at most RELATIVE_ACCURACY either way */
+        static double valueOf(int bucket) {
+            return 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+        }
+
+        private void ensureCapacity(int bucket) {
+            if (counts.length == 0) {
+                counts = new int[1];
+                offset = bucket;
+            } else if (bucket < offset) {
+                int[] grown = new int[counts.length + offset - bucket];
+                System.arraycopy(counts, 0, grown, offset - bucket, counts.length);
+                counts = grown;
+                offset = bucket;
+            } else if (bucket >= offset + counts.length) {
+                int[] grown = new int[bucket - offset + 1];
+                System.arraycopy(counts, 0, grown, 0, counts.length);
+                counts = grown;
+            }
+        }
+
+        private static BigDecimal price(double value) {
+            return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import com.airbnb.backend.dto.PropertyFacetResultDTO;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap indexes over the facet attributes of Properties (city, room type, bedrooms, price bucket).
+ * Bit positions are property IDs; since IDs are dense auto-increment values a plain BitSet is only
+ * a few KB per attribute value, and AND/cardinality over it is word-at-a-time.
+ */
+@Component
+public class PropertyFacetIndex implements PropertyIndex {
+
+    public static final String CITY = "city";
+    public static final String ROOM_TYPE = "room_type";
+    public static final String BEDROOMS = "bedrooms";
+    public static final String PRICE_RANGE = "price_range";
+
+    private static final int[] PRICE_BUCKET_EDGES = {0, 100, 200, 300, 400, 500, 750, 1000};
+
+    // Orders "2" before "10" and "100-200" before "1000+" by their leading number
+    private static final Comparator<String> NUMERIC_ORDER =
+            Comparator.comparingInt(PropertyFacetIndex::leadingNumber).thenComparing(Comparator.naturalOrder());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Facet> facets = new LinkedHashMap<>();
+    private final BitSet all = new BitSet();
+    private volatile boolean loaded;
+
+    public PropertyFacetIndex() {
+        facets.put(CITY, new Facet(Comparator.naturalOrder()));
+        facets.put(ROOM_TYPE, new Facet(Comparator.naturalOrder()));
+        facets.put(BEDROOMS, new Facet(NUMERIC_ORDER));
+        facets.put(PRICE_RANGE, new Facet(NUMERIC_ORDER));
+    }
+
+    @Override
+    public void load(List<PropertyDTO> properties) {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            facets.values().forEach(Facet::clear);
+            for (PropertyDTO property : properties) {
+                add(property);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(PropertyDTO property) {
+        lock.writeLock().lock();
+        try {
+            clearBit(property.getId());
+            add(property);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int propertyId) {
+        lock.writeLock().lock();
+        try {
+            clearBit(propertyId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Intersects the selected values of every facet and returns the matching IDs together with
+     * per-value counts. Values within one facet are OR-ed; each facet's counts apply the filters of
+     * all other facets so that unselected alternatives still show how many results they would give.
+     *
+     * @param filters facet name to selected values; facets that are missing or empty are not filtered
+     */
+    public PropertyFacetResultDTO search(Map<String, ? extends Collection<String>> filters, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> selections = new LinkedHashMap<>();
+            facets.forEach((name, facet) -> {
+                Collection<String> values = filters.get(name);
+                if (values != null && !values.isEmpty()) {
+                    selections.put(name, facet.union(values));
+                }
+            });
+
+            BitSet matches = intersect(selections, null);
+
+            List<Integer> ids = new ArrayList<>();
+            for (int id = matches.nextSetBit(0); id >= 0 && ids.size() < limit; id = matches.nextSetBit(id + 1)) {
+                ids.add(id);
+            }
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            facets.forEach((name, facet) -> counts.put(name, facet.counts(intersect(selections, name))));
+
+            PropertyFacetResultDTO result = new PropertyFacetResultDTO();
+            result.setTotalMatches(matches.cardinality());
+            result.setPropertyIds(ids);
+            result.setFacets(counts);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet intersect(Map<String, BitSet> selections, String excludedFacet) {
+        BitSet result = (BitSet) all.clone();
+        selections.forEach((name, bits) -> {
+            if (!name.equals(excludedFacet)) {
+                result.and(bits);
+            }
+        });
+        return result;
+    }
+
+    private void add(PropertyDTO property) {
+        int id = property.getId();
+        all.set(id);
+        facets.get(CITY).set(property.getCity(), id);
+        facets.get(ROOM_TYPE).set(property.getRoomType(), id);
+        if (property.getBedrooms() != null) {
+            facets.get(BEDROOMS).set(String.valueOf(property.getBedrooms()), id);
+        }
+        facets.get(PRICE_RANGE).set(priceRange(property.getPrice()), id);
+    }
+
+    private void clearBit(int id) {
+        all.clear(id);
+        facets.values().forEach(facet -> facet.clear(id));
+    }
+
+    static String priceRange(BigDecimal price) {
+        double value = price.doubleValue();
+        for (int i = PRICE_BUCKET_EDGES.length - 1; i > 0; i--) {
+            if (value >= PRICE_BUCKET_EDGES[i]) {
+                return i == PRICE_BUCKET_EDGES.length - 1
+                        ? PRICE_BUCKET_EDGES[i] + "+"
+                        : PRICE_BUCKET_EDGES[i] + "-" + PRICE_BUCKET_EDGES[i + 1];
+            }
+        }
+        return PRICE_BUCKET_EDGES[0] + "-" + PRICE_BUCKET_EDGES[1];
+    }
+
+    private static int leadingNumber(String value) {
+        int number = 0;
+        int i = 0;
+        while (i < value.length() && i < 9 && Character.isDigit(value.charAt(i))) {
+            number = number * 10 + (value.charAt(i) - '0');
+            i++;
+        }
+        return i == 0 ? -1 : number;
+    }
+
+    /**
+     * One bitmap per attribute value. Values are matched case-insensitively, as MySQL compares them,
+     * and reported with the spelling first seen.
+     */
+    private static final class Facet {
+
+        private final Map<String, BitSet> bitmaps;
+        private final Map<String, String> labels = new HashMap<>();
+
+        Facet(Comparator<String> order) {
+            this.bitmaps = new TreeMap<>(order);
+        }
+
+        void set(String value, int id) {
+            String key = value.toLowerCase(Locale.ROOT);
+            labels.putIfAbsent(key, value);
+            bitmaps.computeIfAbsent(key, k -> new BitSet()).set(id);
+        }
+
+        void clear(int id) {
+            bitmaps.values().forEach(bits -> bits.clear(id));
+        }
+
+        void clear() {
+            bitmaps.clear();
+            labels.clear();
+        }
+
+        BitSet union(Collection<String> values) {
+            BitSet result = new BitSet();
+            for (String value : values) {
+                BitSet bits = bitmaps.get(value.toLowerCase(Locale.ROOT));
+                if (bits != null) {
+                    result.or(bits);
+                }
+            }
+            return result;
+        }
+
+        Map<String, Integer> counts(BitSet base) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            bitmaps.forEach((key, bits) -> {
+                BitSet matched = (BitSet) bits.clone();
+                matched.and(base);
+                int count = matched.cardinality();
+                if (count > 0) {
+                    counts.put(labels.get(key), count);
+                }
+            });
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+
+import java.util.List;
+
+/**
+ * In-memory structure derived from the Properties table.
+ * Loaded once from MySQL by {@link PropertyIndexLoader} and kept current by the PropertyService write methods.
+ */
+public interface PropertyIndex {
+
+    /**
+     * Replace the whole index with a snapshot of the Properties table
+     */
+    void load(List<PropertyDTO> properties);
+
+    /**
+     * Insert a new property or replace the indexed copy of an existing one
+     */
+    void upsert(PropertyDTO property);
+
+    /**
+     * Drop a property from the index
+     */
+    void remove(int propertyId);
+
+    /**
+     * Whether a snapshot has been loaded; callers fall back to MySQL until it has
+     */
+    boolean isLoaded();
+}
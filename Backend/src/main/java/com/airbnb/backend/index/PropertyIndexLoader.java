@@ -0,0 +1,65 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import com.airbnb.backend.service.PropertyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the Properties table once at startup and hands the snapshot to every {@link PropertyIndex}
+ * through {@link PropertyIndexes}, which replays writes made during the stream.
+ * If MySQL is not reachable yet the load is retried until it succeeds; until then the indexes report
+ * not loaded and PropertyService answers from the stored procedures.
+ */
+@Component
+public class PropertyIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyIndexLoader.class);
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private PropertyIndexes propertyIndexes;
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loadAll();
+    }
+
+    @Scheduled(initialDelayString = "${property-index.retry-interval-ms:60000}",
+               fixedDelayString = "${property-index.retry-interval-ms:60000}")
+    public void retryIfNotLoaded() {
+        if (!loaded) {
+            loadAll();
+        }
+    }
+
+    public synchronized void loadAll() {
+        long start = System.nanoTime();
+        propertyIndexes.beginLoad();
+        try {
+            List<PropertyDTO> snapshot = new ArrayList<>();
+            propertyService.streamAllProperties(snapshot::add);
+
+            propertyIndexes.load(snapshot);
+            loaded = true;
+
+            log.info("Loaded {} properties into {} in-memory indexes in {} ms",
+                    snapshot.size(), propertyIndexes.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            propertyIndexes.abortLoad();
+            log.warn("Could not load property indexes, falling back to MySQL: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies property writes to every {@link PropertyIndex}. While {@link PropertyIndexLoader} is reading
+ * the Properties table the writes are also journaled and replayed on top of the snapshot, so a write made
+ * during the read is not overwritten by the older copy the snapshot holds.
+ */
+@Component
+public class PropertyIndexes {
+
+    @Autowired
+    private List<PropertyIndex> indexes;
+
+    // Writes made while a load is reading Properties; a null value is a removal
+    private List<Map.Entry<Integer, PropertyDTO>> journal;
+
+    public synchronized void upsert(PropertyDTO property) {
+        if (journal != null) {
+            journal.add(Map.entry(property.getId(), property));
+        }
+        for (PropertyIndex index : indexes) {
+            index.upsert(property);
+        }
+    }
+
+    public synchronized void remove(int propertyId) {
+        if (journal != null) {
+            journal.add(new AbstractMap.SimpleEntry<>(propertyId, null));
+        }
+        for (PropertyIndex index : indexes) {
+            index.remove(propertyId);
+        }
+    }
+
+    /**
+     * Starts journaling writes; call before the snapshot starts reading Properties
+     */
+    synchronized void beginLoad() {
+        journal = new ArrayList<>();
+    }
+
+    synchronized void abortLoad() {
+        journal = null;
+    }
+
+    /**
+     * Loads the snapshot into every index, then replays the writes made since {@link #beginLoad}.
+     * Upserting or removing a property twice has the same effect as once, so writes the snapshot
+     * already saw are harmless.
+     */
+    synchronized void load(List<PropertyDTO> snapshot) {
+        List<Map.Entry<Integer, PropertyDTO>> replay = journal != null ? journal : List.of();
+        journal = null;
+        for (PropertyIndex index : indexes) {
+            index.load(snapshot);
+            for (Map.Entry<Integer, PropertyDTO> write : replay) {
+                if (write.getValue() != null) {
+                    index.upsert(write.getValue());
+                } else {
+                    index.remove(write.getKey());
+                }
+            }
+        }
+    }
+
+    int size() {
+        return indexes.size();
+    }
+}
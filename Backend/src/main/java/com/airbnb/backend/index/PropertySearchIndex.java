@@ -0,0 +1,343 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Columnar copy of Properties used to answer GetFilteredProperties without a MySQL round trip.
+ * Each city holds primitive arrays sorted by price, so the price bound is a binary search and the
+ * remaining predicates are a tight scan over the matching prefix. Each city also keeps its rows in
+ * center- and metro-distance order, so nearest-first queries stop after K matches.
+ * Reads are lock-free: a write rebuilds only the affected city and swaps the map reference.
+ */
+@Component
+public class PropertySearchIndex implements PropertyIndex {
+
+    private volatile Map<String, CityColumns> cities = Map.of();
+    private final Map<Integer, String> cityKeyById = new HashMap<>();
+    private volatile boolean loaded;
+
+    @Override
+    public synchronized void load(List<PropertyDTO> properties) {
+        Map<String, List<PropertyDTO>> rowsByCity = new HashMap<>();
+        cityKeyById.clear();
+        for (PropertyDTO property : properties) {
+            String key = cityKey(property.getCity());
+            rowsByCity.computeIfAbsent(key, k -> new ArrayList<>()).add(property);
+            cityKeyById.put(property.getId(), key);
+        }
+
+        Map<String, CityColumns> fresh = new HashMap<>();
+        rowsByCity.forEach((key, rows) -> fresh.put(key, CityColumns.of(rows)));
+        cities = fresh;
+        loaded = true;
+    }
+
+    @Override
+    public synchronized void upsert(PropertyDTO property) {
+        Map<String, CityColumns> next = new HashMap<>(cities);
+
+        String previousKey = cityKeyById.get(property.getId());
+        if (previousKey != null) {
+            CityColumns previous = next.get(previousKey).without(property.getId());
+            if (previous.size == 0) {
+                next.remove(previousKey);
+            } else {
+                next.put(previousKey, previous);
+            }
+        }
+
+        String key = cityKey(property.getCity());
+        CityColumns target = next.getOrDefault(key, CityColumns.EMPTY);
+        next.put(key, target.with(property));
+        cityKeyById.put(property.getId(), key);
+        cities = next;
+    }
+
+    @Override
+    public synchronized void remove(int propertyId) {
+        String key = cityKeyById.remove(propertyId);
+        if (key == null) {
+            return;
+        }
+        Map<String, CityColumns> next = new HashMap<>(cities);
+        CityColumns remaining = next.get(key).without(propertyId);
+        if (remaining.size == 0) {
+            next.remove(key);
+        } else {
+            next.put(key, remaining);
+        }
+        cities = next;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Same predicates as the GetFilteredProperties procedure; results are ordered by price ascending
+     */
+    public List<PropertyDTO> search(String city, int maxPrice, int minCapacity, float maxCenterDistance, float maxMetroDistance) {
+        CityColumns columns = cities.get(cityKey(city));
+        if (columns == null) {
+            return new ArrayList<>();
+        }
+        return columns.search(maxPrice * 100L, minCapacity,
+                FixedPoint.boundToHundredths(maxCenterDistance),
+                FixedPoint.boundToHundredths(maxMetroDistance));
+    }
+
+    /**
+     * The k properties closest to the city center (or to a metro station) that satisfy the optional
+     * price and capacity bounds, nearest first. Properties without a distance are never returned.
+     */
+    public List<PropertyDTO> nearest(String city, boolean byMetro, int k, Integer maxPrice, Integer minCapacity) {
+        CityColumns columns = cities.get(cityKey(city));
+        if (columns == null) {
+            return new ArrayList<>();
+        }
+        return columns.nearest(byMetro, k,
+                maxPrice != null ? maxPrice * 100L : Long.MAX_VALUE,
+                minCapacity != null ? minCapacity : Integer.MIN_VALUE);
+    }
+
+    /**
+     * Up to limit properties of the city within the optional price and capacity bounds whose ID passes
+     * the filter, cheapest first. The filter runs before any DTO is built.
+     */
+    public List<PropertyDTO> search(String city, Integer maxPrice, Integer minCapacity, IntPredicate idFilter, int limit) {
+        CityColumns columns = cities.get(cityKey(city));
+        if (columns == null) {
+            return new ArrayList<>();
+        }
+        return columns.search(maxPrice != null ? maxPrice * 100L : Long.MAX_VALUE,
+                minCapacity != null ? minCapacity : Integer.MIN_VALUE, idFilter, limit);
+    }
+
+    public int size() {
+        int total = 0;
+        for (CityColumns columns : cities.values()) {
+            total += columns.size;
+        }
+        return total;
+    }
+
+    // City comparison in MySQL follows the case-insensitive column collation
+    private static String cityKey(String city) {
+        return city == null ? "" : city.toLowerCase(Locale.ROOT);
+    }
+
+    static final class CityColumns {
+
+        static final CityColumns EMPTY = new CityColumns(0);
+
+        final int size;
+        final long[] prices;
+        final int[] ids;
+        final int[] hostIds;
+        final int[] capacities;
+        final int[] bedrooms;
+        final int[] centerDistances;
+        final int[] metroDistances;
+        final String[] roomTypes;
+        final String[] cityNames;
+        private volatile int[] byCenterDistance;
+        private volatile int[] byMetroDistance;
+
+        private CityColumns(int size) {
+            this.size = size;
+            this.prices = new long[size];
+            this.ids = new int[size];
+            this.hostIds = new int[size];
+            this.capacities = new int[size];
+            this.bedrooms = new int[size];
+            this.centerDistances = new int[size];
+            this.metroDistances = new int[size];
+            this.roomTypes = new String[size];
+            this.cityNames = new String[size];
+        }
+
+        static CityColumns of(List<PropertyDTO> rows) {
+            List<PropertyDTO> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(PropertyDTO::getPrice).thenComparing(PropertyDTO::getId));
+
+            CityColumns columns = new CityColumns(sorted.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                columns.set(i, sorted.get(i));
+            }
+            return columns;
+        }
+
+        List<PropertyDTO> nearest(boolean byMetro, int k, long maxPriceCents, int minCapacity) {
+            int[] order = byMetro ? byMetroDistance() : byCenterDistance();
+            int[] distances = byMetro ? metroDistances : centerDistances;
+            List<PropertyDTO> result = new ArrayList<>(Math.min(k, size));
+            for (int n = 0; n < order.length && result.size() < k; n++) {
+                int i = order[n];
+                if (distances[i] == FixedPoint.NULL_DISTANCE) {
+                    break;
+                }
+                if (prices[i] <= maxPriceCents && capacities[i] >= minCapacity) {
+                    result.add(toDto(i));
+                }
+            }
+            return result;
+        }
+
+        List<PropertyDTO> search(long maxPriceCents, int minCapacity, long maxCenter, long maxMetro) {
+            int end = upperBound(maxPriceCents);
+            List<PropertyDTO> result = new ArrayList<>();
+            for (int i = 0; i < end; i++) {
+                if (capacities[i] >= minCapacity && centerDistances[i] <= maxCenter && metroDistances[i] <= maxMetro) {
+                    result.add(toDto(i));
+                }
+            }
+            return result;
+        }
+
+        List<PropertyDTO> search(long maxPriceCents, int minCapacity, IntPredicate idFilter, int limit) {
+            int end = upperBound(maxPriceCents);
+            List<PropertyDTO> result = new ArrayList<>();
+            for (int i = 0; i < end && result.size() < limit; i++) {
+                if (capacities[i] >= minCapacity && idFilter.test(ids[i])) {
+                    result.add(toDto(i));
+                }
+            }
+            return result;
+        }
+
+        // Distance orderings are derived on first use; blocks are immutable once published
+        private int[] byCenterDistance() {
+            int[] order = byCenterDistance;
+            if (order == null) {
+                order = sortedBy(centerDistances);
+                byCenterDistance = order;
+            }
+            return order;
+        }
+
+        private int[] byMetroDistance() {
+            int[] order = byMetroDistance;
+            if (order == null) {
+                order = sortedBy(metroDistances);
+                byMetroDistance = order;
+            }
+            return order;
+        }
+
+        /** Row positions ordered by the given column, NULL distances last */
+        private int[] sortedBy(int[] distances) {
+            long[] keyed = new long[size];
+            for (int i = 0; i < size; i++) {
+                keyed[i] = ((long) distances[i] << 32) | i;
+            }
+            Arrays.sort(keyed);
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) keyed[i];
+            }
+            return order;
+        }
+
+        /** Copy of this block with the property inserted at its price position */
+        CityColumns with(PropertyDTO property) {
+            long price = FixedPoint.toCents(property.getPrice());
+            int position = upperBound(price);
+
+            CityColumns next = new CityColumns(size + 1);
+            for (int i = 0; i < position; i++) {
+                next.copyRow(this, i, i);
+            }
+            next.set(position, property);
+            for (int i = position; i < size; i++) {
+                next.copyRow(this, i, i + 1);
+            }
+            return next;
+        }
+
+        /** Copy of this block without the given property */
+        CityColumns without(int propertyId) {
+            int position = -1;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == propertyId) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return this;
+            }
+
+            CityColumns next = new CityColumns(size - 1);
+            for (int i = 0, j = 0; i < size; i++) {
+                if (i != position) {
+                    next.copyRow(this, i, j++);
+                }
+            }
+            return next;
+        }
+
+        /** First position whose price is greater than the bound */
+        private int upperBound(long priceCents) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= priceCents) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void set(int i, PropertyDTO property) {
+            prices[i] = FixedPoint.toCents(property.getPrice());
+            ids[i] = property.getId();
+            hostIds[i] = property.getHostId();
+            capacities[i] = property.getPersonCapacity();
+            bedrooms[i] = FixedPoint.toNullableInt(property.getBedrooms());
+            centerDistances[i] = FixedPoint.toHundredths(property.getCenterDistance());
+            metroDistances[i] = FixedPoint.toHundredths(property.getMetroDistance());
+            roomTypes[i] = property.getRoomType();
+            cityNames[i] = property.getCity();
+        }
+
+        private void copyRow(CityColumns source, int from, int to) {
+            prices[to] = source.prices[from];
+            ids[to] = source.ids[from];
+            hostIds[to] = source.hostIds[from];
+            capacities[to] = source.capacities[from];
+            bedrooms[to] = source.bedrooms[from];
+            centerDistances[to] = source.centerDistances[from];
+            metroDistances[to] = source.metroDistances[from];
+            roomTypes[to] = source.roomTypes[from];
+            cityNames[to] = source.cityNames[from];
+        }
+
+        private PropertyDTO toDto(int i) {
+            PropertyDTO property = new PropertyDTO();
+            property.setId(ids[i]);
+            property.setHostId(hostIds[i]);
+            property.setPrice(FixedPoint.fromCents(prices[i]));
+            property.setRoomType(roomTypes[i]);
+            property.setPersonCapacity(capacities[i]);
+            property.setBedrooms(FixedPoint.fromNullableInt(bedrooms[i]));
+            property.setCenterDistance(FixedPoint.fromHundredths(centerDistances[i]));
+            property.setMetroDistance(FixedPoint.fromHundredths(metroDistances[i]));
+            property.setCity(cityNames[i]);
+            return property;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * k-nearest-neighbour index for the "similar properties" panel.
+ * Every property is a point of z-score normalised features (log price, capacity, bedrooms, room type,
+ * center and metro distance) and each city has its own KD-tree, since similar listings are only
+ * suggested within the same city. A write rebuilds only the tree of the affected city.
+ */
+@Component
+public class SimilarPropertyIndex implements PropertyIndex {
+
+    static final int DIMENSIONS = 6;
+
+    private final Map<Integer, String> cityKeyById = new HashMap<>();
+    private final Map<String, List<PropertyDTO>> propertiesByCity = new HashMap<>();
+    private volatile Map<String, CityTree> trees = Map.of();
+    private volatile boolean loaded;
+
+    @Override
+    public synchronized void load(List<PropertyDTO> properties) {
+        cityKeyById.clear();
+        propertiesByCity.clear();
+        for (PropertyDTO property : properties) {
+            cityKeyById.put(property.getId(), cityKey(property.getCity()));
+            propertiesByCity.computeIfAbsent(cityKey(property.getCity()), k -> new ArrayList<>()).add(property);
+        }
+
+        Map<String, CityTree> fresh = new HashMap<>();
+        propertiesByCity.forEach((city, rows) -> fresh.put(city, new CityTree(rows)));
+        trees = fresh;
+        loaded = true;
+    }
+
+    @Override
+    public synchronized void upsert(PropertyDTO property) {
+        Map<String, CityTree> next = new HashMap<>(trees);
+        String city = cityKey(property.getCity());
+        String previousCity = cityKeyById.put(property.getId(), city);
+        if (previousCity != null) {
+            propertiesByCity.get(previousCity).removeIf(p -> p.getId().equals(property.getId()));
+            if (!previousCity.equals(city)) {
+                rebuild(next, previousCity);
+            }
+        }
+        propertiesByCity.computeIfAbsent(city, k -> new ArrayList<>()).add(property);
+        rebuild(next, city);
+        trees = next;
+    }
+
+    @Override
+    public synchronized void remove(int propertyId) {
+        String city = cityKeyById.remove(propertyId);
+        if (city == null) {
+            return;
+        }
+        propertiesByCity.get(city).removeIf(p -> p.getId() == propertyId);
+        Map<String, CityTree> next = new HashMap<>(trees);
+        rebuild(next, city);
+        trees = next;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * The k properties in the same city whose feature vectors are closest to the given property,
+     * most similar first. Returns null if the property is not indexed.
+     */
+    public List<PropertyDTO> similar(int propertyId, int k) {
+        CityTree tree = treeFor(propertyId);
+        return tree == null ? null : tree.nearest(propertyId, k, false);
+    }
+
+    /**
+     * Same answer as {@link #similar} computed by scanning every property of the city; used as the
+     * baseline when benchmarking the KD-tree
+     */
+    List<PropertyDTO> similarBruteForce(int propertyId, int k) {
+        CityTree tree = treeFor(propertyId);
+        return tree == null ? null : tree.nearest(propertyId, k, true);
+    }
+
+    private CityTree treeFor(int propertyId) {
+        String city;
+        synchronized (this) {
+            city = cityKeyById.get(propertyId);
+        }
+        return city == null ? null : trees.get(city);
+    }
+
+    private void rebuild(Map<String, CityTree> next, String city) {
+        List<PropertyDTO> rows = propertiesByCity.get(city);
+        if (rows == null || rows.isEmpty()) {
+            propertiesByCity.remove(city);
+            next.remove(city);
+        } else {
+            next.put(city, new CityTree(rows));
+        }
+    }
+
+    private static String cityKey(String city) {
+        return city == null ? "" : city.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Entire home is furthest from a shared room; the ordinal keeps that on one axis
+     */
+    private static double roomTypeOrdinal(String roomType) {
+        String type = roomType == null ? "" : roomType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("entire")) {
+            return 0;
+        } else if (type.startsWith("private")) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static double[] rawFeatures(PropertyDTO property) {
+        return new double[] {
+                Math.log1p(property.getPrice().doubleValue()),
+                property.getPersonCapacity(),
+                property.getBedrooms() != null ? property.getBedrooms() : Double.NaN,
+                roomTypeOrdinal(property.getRoomType()),
+                property.getCenterDistance() != null ? property.getCenterDistance().doubleValue() : Double.NaN,
+                property.getMetroDistance() != null ? property.getMetroDistance().doubleValue() : Double.NaN
+        };
+    }
+
+    /**
+     * Immutable KD-tree over one city. The tree is implicit: {@code order} holds point indexes so that
+     * every subrange [lo, hi) is split at its midpoint on dimension depth % DIMENSIONS.
+     */
+    static final class CityTree {
+
+        private final PropertyDTO[] properties;
+        private final double[][] points;
+        private final int[] order;
+        private final double[] coordinates;
+        private final Map<Integer, Integer> positionById = new HashMap<>();
+
+        CityTree(List<PropertyDTO> rows) {
+            int n = rows.size();
+            properties = rows.toArray(new PropertyDTO[0]);
+            points = new double[n][];
+            for (int i = 0; i < n; i++) {
+                points[i] = rawFeatures(properties[i]);
+                positionById.put(properties[i].getId(), i);
+            }
+            normalise();
+
+            order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            build(0, n, 0);
+
+            // Coordinates laid out contiguously in tree order so searches walk one flat array
+            coordinates = new double[n * DIMENSIONS];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(points[order[i]], 0, coordinates, i * DIMENSIONS, DIMENSIONS);
+            }
+        }
+
+        List<PropertyDTO> nearest(int propertyId, int k, boolean bruteForce) {
+            Integer position = positionById.get(propertyId);
+            if (position == null || k <= 0 || properties.length == 1) {
+                return new ArrayList<>();
+            }
+            Neighbours neighbours = new Neighbours(Math.min(k, properties.length - 1), position);
+            double[] query = points[position];
+            if (bruteForce) {
+                for (int i = 0; i < order.length; i++) {
+                    neighbours.offer(order[i], distance(query, i));
+                }
+            } else {
+                search(query, neighbours, 0, order.length, 0);
+            }
+
+            List<PropertyDTO> result = new ArrayList<>(neighbours.count);
+            for (int i = 0; i < neighbours.count; i++) {
+                result.add(properties[neighbours.indexes[i]]);
+            }
+            return result;
+        }
+
+        /**
+         * Z-score every dimension within the city; missing values become the city mean (zero)
+         */
+        private void normalise() {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double sum = 0;
+                double sumSquares = 0;
+                int count = 0;
+                for (double[] point : points) {
+                    if (!Double.isNaN(point[d])) {
+                        sum += point[d];
+                        sumSquares += point[d] * point[d];
+                        count++;
+                    }
+                }
+                double mean = count > 0 ? sum / count : 0;
+                double variance = count > 0 ? sumSquares / count - mean * mean : 0;
+                double std = variance > 1e-12 ? Math.sqrt(variance) : 1;
+                for (double[] point : points) {
+                    point[d] = Double.isNaN(point[d]) ? 0 : (point[d] - mean) / std;
+                }
+            }
+        }
+
+        private void build(int lo, int hi, int depth) {
+            if (hi - lo <= 1) {
+                return;
+            }
+            int dimension = depth % DIMENSIONS;
+            Integer[] range = new Integer[hi - lo];
+            for (int i = lo; i < hi; i++) {
+                range[i - lo] = order[i];
+            }
+            Arrays.sort(range, (a, b) -> Double.compare(points[a][dimension], points[b][dimension]));
+            for (int i = lo; i < hi; i++) {
+                order[i] = range[i - lo];
+            }
+
+            int mid = (lo + hi) >>> 1;
+            build(lo, mid, depth + 1);
+            build(mid + 1, hi, depth + 1);
+        }
+
+        private void search(double[] query, Neighbours neighbours, int lo, int hi, int depth) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            neighbours.offer(order[mid], distance(query, mid));
+
+            int dimension = depth % DIMENSIONS;
+            double diff = query[dimension] - coordinates[mid * DIMENSIONS + dimension];
+            if (diff < 0) {
+                search(query, neighbours, lo, mid, depth + 1);
+                if (diff * diff < neighbours.worst()) {
+                    search(query, neighbours, mid + 1, hi, depth + 1);
+                }
+            } else {
+                search(query, neighbours, mid + 1, hi, depth + 1);
+                if (diff * diff < neighbours.worst()) {
+                    search(query, neighbours, lo, mid, depth + 1);
+                }
+            }
+        }
+
+        /** Squared distance between the query and the point at a tree position */
+        private double distance(double[] query, int treePosition) {
+            int offset = treePosition * DIMENSIONS;
+            double sum = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = query[d] - coordinates[offset + d];
+                sum += diff * diff;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * The best k candidates so far, kept sorted by squared distance; k is small so insertion is cheap
+     */
+    private static final class Neighbours {
+
+        private final int[] indexes;
+        private final double[] distances;
+        private final int excluded;
+        private int count;
+
+        Neighbours(int k, int excluded) {
+            this.indexes = new int[k];
+            this.distances = new double[k];
+            this.excluded = excluded;
+        }
+
+        double worst() {
+            return count < indexes.length ? Double.POSITIVE_INFINITY : distances[count - 1];
+        }
+
+        void offer(int index, double distance) {
+            if (index == excluded || distance >= worst()) {
+                return;
+            }
+            int i = Math.min(count, indexes.length - 1);
+            while (i > 0 && distances[i - 1] > distance) {
+                indexes[i] = indexes[i - 1];
+                distances[i] = distances[i - 1];
+                i--;
+            }
+            indexes[i] = index;
+            distances[i] = distance;
+            if (count < indexes.length) {
+                count++;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.airbnb.backend.repository;
 
+import com.airbnb.backend.availability.CompletedBookings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -8,17 +9,27 @@ import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Repository;
 
+import java.sql.CallableStatement;
+import java.sql.Date;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 public class BookingRepository {
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CompletedBookings completedBookings;
     
     /**
      * Get guest information from booking ID using stored procedure (demonstrates cross-database data transformation)
@@ -64,6 +75,44 @@ public class BookingRepository {
         }
     }
     
+    /**
+     * Guest name, email, price and the property's city and room type for many bookings with one call of GetGuestInfoFromBookings, keyed by
+     * booking ID. Bookings that do not exist are absent from the result.
+     */
+    public Map<Integer, Map<String, Object>> getGuestInfoFromBookings(Collection<? extends Integer> bookingIds) {
+        Map<Integer, Map<String, Object>> guestInfo = new HashMap<>();
+        if (bookingIds.isEmpty()) {
+            return guestInfo;
+        }
+        String idArray = bookingIds.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+
+        try (var conn = jdbcTemplate.getDataSource().getConnection();
+             var stmt = conn.prepareCall("{CALL GetGuestInfoFromBookings(?)}")) {
+
+            stmt.setString(1, idArray);
+
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> info = new LinkedHashMap<>();
+                    info.put("booking_id", rs.getInt("booking_id"));
+                    info.put("property_id", rs.getInt("property_id"));
+                    info.put("guest_id", rs.getInt("guest_id"));
+                    info.put("guest_name", rs.getString("guest_name"));
+                    info.put("guest_email", rs.getString("guest_email"));
+                    info.put("booking_price", rs.getBigDecimal("booking_price"));
+                    info.put("property_city", rs.getString("property_city"));
+                    info.put("room_type", rs.getString("room_type"));
+                    guestInfo.put(rs.getInt("booking_id"), info);
+                }
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling stored procedure GetGuestInfoFromBookings", e);
+        }
+
+        return guestInfo;
+    }
+    
     /**
      * Validate that a booking exists and matches the property using stored procedure
      */
@@ -100,9 +149,13 @@ public class BookingRepository {
     }
     
     /**
-     * Check if booking is completed using stored procedure
+     * Check if booking is completed: answered from the in-memory completed set once it is loaded,
+     * otherwise by the IsBookingCompleted stored procedure
      */
     public boolean isBookingCompleted(Integer bookingId) {
+        if (bookingId != null && completedBookings.isLoaded()) {
+            return completedBookings.contains(bookingId);
+        }
         try {
             SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTemplate)
                 .withProcedureName("IsBookingCompleted")
@@ -201,6 +254,83 @@ public class BookingRepository {
         return bookings;
     }
 
+    /**
+     * One page of bookings across every property of the host, most recent stay end first. The window
+     * bounds and the (afterEnd, afterId) keyset position are optional.
+     */
+    public List<Map<String, Object>> getBookingsByHostId(int hostId, LocalDate from, LocalDate to,
+                                                         LocalDate afterEnd, Integer afterId, int limit) {
+        List<Map<String, Object>> bookings = new ArrayList<>();
+
+        try (var conn = jdbcTemplate.getDataSource().getConnection();
+             var stmt = conn.prepareCall("{CALL GetHostBookings(?, ?, ?, ?, ?, ?)}")) {
+
+            stmt.setInt(1, hostId);
+            setDate(stmt, 2, from);
+            setDate(stmt, 3, to);
+            setDate(stmt, 4, afterId != null ? afterEnd : null);
+            stmt.setInt(5, afterId != null ? afterId : 0);
+            stmt.setInt(6, limit);
+
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> booking = new LinkedHashMap<>();
+                    booking.put("booking_id", rs.getInt("ID"));
+                    booking.put("property_id", rs.getInt("Property_ID"));
+                    booking.put("guest_id", rs.getInt("Guest_ID"));
+                    booking.put("booking_start", rs.getDate("Booking_start").toLocalDate());
+                    booking.put("booking_end", rs.getDate("Booking_end").toLocalDate());
+                    booking.put("booking_price", rs.getBigDecimal("Price"));
+                    booking.put("booking_status", rs.getString("Status"));
+                    bookings.add(booking);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling stored procedure GetHostBookings", e);
+        }
+
+        return bookings;
+    }
+
+    /**
+     * Booking count, earnings, nights sold and status counts over the host's properties, aggregated in SQL
+     */
+    public Map<String, Object> getHostBookingStats(int hostId, LocalDate from, LocalDate to) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        try (var conn = jdbcTemplate.getDataSource().getConnection();
+             var stmt = conn.prepareCall("{CALL GetHostBookingStats(?, ?, ?)}")) {
+
+            stmt.setInt(1, hostId);
+            setDate(stmt, 2, from);
+            setDate(stmt, 3, to);
+
+            try (var rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    stats.put("total_bookings", rs.getLong("total_bookings"));
+                    stats.put("total_earnings", rs.getBigDecimal("total_earnings"));
+                    stats.put("nights_sold", rs.getLong("nights_sold"));
+                    stats.put("distinct_guests", rs.getLong("distinct_guests"));
+                    stats.put("completed_bookings", rs.getLong("completed_bookings"));
+                    stats.put("active_bookings", rs.getLong("active_bookings"));
+                    stats.put("upcoming_bookings", rs.getLong("upcoming_bookings"));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling stored procedure GetHostBookingStats", e);
+        }
+
+        return stats;
+    }
+
+    private static void setDate(CallableStatement stmt, int index, LocalDate date) throws SQLException {
+        if (date != null) {
+            stmt.setDate(index, Date.valueOf(date));
+        } else {
+            stmt.setNull(index, Types.DATE);
+        }
+    }
+
     public List<Map<String, Object>> getBookingsByPropertyId(int propertyId) {
         List<Map<String, Object>> bookings = new ArrayList<>();
 
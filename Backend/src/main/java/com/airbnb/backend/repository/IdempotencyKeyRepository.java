@@ -0,0 +1,72 @@
+package com.airbnb.backend.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable copy of completed idempotent requests in the idempotency_keys collection.
+ * A TTL index on created_at removes entries; its expiry is kept equal to idempotency.ttl-hours by
+ * {@link #ensureTtlIndex(long)}.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    private static final String COLLECTION = "idempotency_keys";
+    private static final Document TTL_KEY = new Document("created_at", 1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Stored response for the key, or null if none
+     */
+    public Document find(String key) {
+        return mongoTemplate.getCollection(COLLECTION).find(new Document("_id", key)).first();
+    }
+
+    public void save(String key, String fingerprint, int status, String contentType, String body) {
+        Document document = new Document("_id", key)
+                .append("fingerprint", fingerprint)
+                .append("status", status)
+                .append("content_type", contentType)
+                .append("body", body)
+                .append("created_at", new Date());
+        mongoTemplate.getCollection(COLLECTION).replaceOne(new Document("_id", key), document,
+                new ReplaceOptions().upsert(true));
+    }
+
+    /**
+     * Creates the created_at TTL index, or changes the expiry of an existing one, so that MongoDB removes
+     * entries after {@code ttlSeconds}. Returns the expiry the index had before, or null if it was created.
+     */
+    public Long ensureTtlIndex(long ttlSeconds) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        for (Document index : collection.listIndexes()) {
+            if (isTtlKey(index.get("key", Document.class))) {
+                Number current = index.get("expireAfterSeconds", Number.class);
+                if (current == null || current.longValue() != ttlSeconds) {
+                    mongoTemplate.getDb().runCommand(new Document("collMod", COLLECTION)
+                            .append("index", new Document("keyPattern", TTL_KEY)
+                                    .append("expireAfterSeconds", ttlSeconds)));
+                }
+                return current == null ? -1L : current.longValue();
+            }
+        }
+        collection.createIndex(TTL_KEY, new IndexOptions().expireAfter(ttlSeconds, TimeUnit.SECONDS));
+        return null;
+    }
+
+    // mongosh writes index key directions as doubles, so compare numerically
+    private static boolean isTtlKey(Document key) {
+        return key != null && key.size() == 1
+                && key.get("created_at") instanceof Number direction && direction.intValue() == 1;
+    }
+}
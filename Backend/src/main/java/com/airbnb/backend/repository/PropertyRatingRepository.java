@@ -1,6 +1,18 @@
 package com.airbnb.backend.repository;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -12,6 +24,8 @@ import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +34,8 @@ import java.util.Date;
 
 @Repository
 public class PropertyRatingRepository {
+
+    private static final int DUPLICATE_KEY = 11000;
     
     @Autowired
     private MongoTemplate mongoTemplate;
@@ -36,6 +52,8 @@ public class PropertyRatingRepository {
                     .append("_id", "$property_id")
                     .append("avgCleanlinessRating", new Document("$avg", "$cleanliness_rating"))
                     .append("avgSatisfactionRating", new Document("$avg", "$guest_satisfaction"))
+                    .append("cleanlinessSum", new Document("$sum", "$cleanliness_rating"))
+                    .append("satisfactionSum", new Document("$sum", "$guest_satisfaction"))
                     .append("totalReviews", new Document("$sum", 1))
                 ),
                 new Document("$project", new Document()
@@ -43,6 +61,8 @@ public class PropertyRatingRepository {
                     .append("avg_cleanliness_rating", new Document("$round", Arrays.asList("$avgCleanlinessRating", 2)))
                     .append("avg_satisfaction_rating", new Document("$round", Arrays.asList("$avgSatisfactionRating", 2)))
                     .append("total_reviews", "$totalReviews")
+                    .append("cleanliness_sum", "$cleanlinessSum")
+                    .append("satisfaction_sum", "$satisfactionSum")
                     .append("last_updated", new Document("$literal", new java.util.Date()))
                     .append("_id", 0)
                 )
@@ -62,6 +82,8 @@ public class PropertyRatingRepository {
                     .set("avg_cleanliness_rating", ratingData.getDouble("avg_cleanliness_rating"))
                     .set("avg_satisfaction_rating", ratingData.getDouble("avg_satisfaction_rating"))
                     .set("total_reviews", ratingData.getInteger("total_reviews"))
+                    .set("cleanliness_sum", ((Number) ratingData.get("cleanliness_sum")).longValue())
+                    .set("satisfaction_sum", ((Number) ratingData.get("satisfaction_sum")).longValue())
                     .set("last_updated", LocalDateTime.now());
                 
                 mongoTemplate.upsert(query, update, "property_ratings");
@@ -91,39 +113,288 @@ public class PropertyRatingRepository {
     }
     
     /**
-     * Recalculate all property ratings
+     * Fold one new review into the property's running sums and recompute the averages, all in a single
+     * atomic update of the property_ratings document. The cost does not depend on how many reviews the
+     * property already has, and concurrent reviews of the same property cannot overwrite each other.
      */
-    public Map<String, Object> recalculateAllPropertyRatings() {
+    public Map<String, Object> applyReview(Integer propertyId, Integer cleanlinessRating, Integer satisfactionRating) {
         try {
-            // Get all unique property IDs using aggregation
-            List<Document> distinctPipeline = Arrays.asList(
-                new Document("$group", new Document("_id", "$property_id")),
-                new Document("$project", new Document("property_id", "$_id").append("_id", 0))
+            // Documents written before the running sums existed start from average x count
+            Document cleanlinessSum = runningSum("cleanliness_sum", "avg_cleanliness_rating");
+            Document satisfactionSum = runningSum("satisfaction_sum", "avg_satisfaction_rating");
+            List<Document> incrementPipeline = Arrays.asList(
+                new Document("$set", new Document()
+                    .append("property_id", propertyId)
+                    .append("cleanliness_sum", new Document("$add", Arrays.asList(cleanlinessSum, cleanlinessRating.longValue())))
+                    .append("satisfaction_sum", new Document("$add", Arrays.asList(satisfactionSum, satisfactionRating.longValue())))
+                    .append("total_reviews", new Document("$add", Arrays.asList(new Document("$ifNull", Arrays.asList("$total_reviews", 0)), 1)))
+                    .append("last_updated", "$$NOW")
+                ),
+                new Document("$set", new Document()
+                    .append("avg_cleanliness_rating", roundedAverage("$cleanliness_sum"))
+                    .append("avg_satisfaction_rating", roundedAverage("$satisfaction_sum"))
+                )
             );
-            
-            List<Document> propertyResults = mongoTemplate.getCollection("reviews")
-                .aggregate(distinctPipeline)
-                .into(new java.util.ArrayList<>());
-            
-            int processed = 0;
-            for (Document doc : propertyResults) {
-                Integer propertyId = doc.getInteger("property_id");
-                Map<String, Object> result = calculatePropertyRating(propertyId);
-                if ((Boolean) result.get("success")) {
-                    processed++;
+
+            Document ratingData = upsertRating(propertyId, incrementPipeline);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("property_id", propertyId);
+            response.put("avg_cleanliness_rating", ((Number) ratingData.get("avg_cleanliness_rating")).doubleValue());
+            response.put("avg_satisfaction_rating", ((Number) ratingData.get("avg_satisfaction_rating")).doubleValue());
+            response.put("total_reviews", ((Number) ratingData.get("total_reviews")).intValue());
+            response.put("message", "Rating updated incrementally");
+            return response;
+        } catch (Exception e) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", false);
+            response.put("property_id", propertyId);
+            response.put("error", "Incremental rating update error: " + e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Compare every property's running sums with the reviews collection and rewrite the documents that
+     * have drifted (reviews added without a rating update, failed increments, documents without sums).
+     * Reviews are grouped server-side and streamed; ratings are fetched and corrected in batches.
+     * A correction only applies if the rating document still holds the values just read, so an increment
+     * that lands meanwhile turns it into a no-op until the next run. Properties reviewed within the last
+     * {@code graceSeconds} are skipped, because their newest review may not have been applied yet.
+     */
+    public Map<String, Object> reconcilePropertyRatings(int batchSize, long graceSeconds) {
+        long start = System.nanoTime();
+        try {
+            List<Document> groupPipeline = Arrays.asList(
+                new Document("$group", new Document()
+                    .append("_id", "$property_id")
+                    .append("cleanliness_sum", new Document("$sum", "$cleanliness_rating"))
+                    .append("satisfaction_sum", new Document("$sum", "$guest_satisfaction"))
+                    .append("total_reviews", new Document("$sum", 1))
+                    .append("last_review_at", new Document("$max", "$created_at"))
+                )
+            );
+            Date settledBefore = new Date(System.currentTimeMillis() - graceSeconds * 1000);
+
+            int checked = 0;
+            int[] outcome = new int[2];
+            List<Document> batch = new ArrayList<>(batchSize);
+            try (MongoCursor<Document> cursor = mongoTemplate.getCollection("reviews")
+                    .aggregate(groupPipeline)
+                    .allowDiskUse(true)
+                    .batchSize(batchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == batchSize) {
+                        checked += batch.size();
+                        reconcileBatch(batch, settledBefore, outcome);
+                        batch.clear();
+                    }
                 }
             }
-            
+            if (!batch.isEmpty()) {
+                checked += batch.size();
+                reconcileBatch(batch, settledBefore, outcome);
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("properties_checked", checked);
+            response.put("properties_corrected", outcome[0]);
+            response.put("properties_skipped", outcome[1]);
+            response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+            response.put("message", "Rating reconciliation completed");
+            return response;
+        } catch (Exception e) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", false);
+            response.put("error", "Rating reconciliation error: " + e.getMessage());
+            return response;
+        }
+    }
+
+    // Adds the corrected count to outcome[0] and the properties left for the next run to outcome[1]
+    private void reconcileBatch(List<Document> expected, Date settledBefore, int[] outcome) {
+        List<Integer> propertyIds = new ArrayList<>(expected.size());
+        for (Document group : expected) {
+            propertyIds.add(group.getInteger("_id"));
+        }
+
+        Map<Integer, Document> stored = new HashMap<>();
+        mongoTemplate.getCollection("property_ratings")
+            .find(new Document("property_id", new Document("$in", propertyIds)))
+            .projection(new Document("property_id", 1).append("cleanliness_sum", 1)
+                .append("satisfaction_sum", 1).append("total_reviews", 1))
+            .forEach(doc -> stored.put(doc.getInteger("property_id"), doc));
+
+        List<WriteModel<Document>> fixes = new ArrayList<>();
+        for (Document group : expected) {
+            Integer propertyId = group.getInteger("_id");
+            long cleanlinessSum = ((Number) group.get("cleanliness_sum")).longValue();
+            long satisfactionSum = ((Number) group.get("satisfaction_sum")).longValue();
+            int totalReviews = group.getInteger("total_reviews");
+
+            Document current = stored.get(propertyId);
+            if (current != null
+                    && sameCount(current.get("cleanliness_sum"), cleanlinessSum)
+                    && sameCount(current.get("satisfaction_sum"), satisfactionSum)
+                    && sameCount(current.get("total_reviews"), totalReviews)) {
+                continue;
+            }
+            Date lastReviewAt = group.getDate("last_review_at");
+            if (lastReviewAt != null && !lastReviewAt.before(settledBefore)) {
+                outcome[1]++;
+                continue;
+            }
+
+            Document corrected = new Document()
+                .append("property_id", propertyId)
+                .append("cleanliness_sum", cleanlinessSum)
+                .append("satisfaction_sum", satisfactionSum)
+                .append("total_reviews", totalReviews)
+                .append("avg_cleanliness_rating", round2((double) cleanlinessSum / totalReviews))
+                .append("avg_satisfaction_rating", round2((double) satisfactionSum / totalReviews))
+                .append("last_updated", new Date());
+            if (current == null) {
+                // A concurrent first review creates the document too; the unique index rejects one of them
+                fixes.add(new InsertOneModel<>(corrected));
+            } else {
+                // Only while the document still holds what was just read ({field: null} also matches a missing field)
+                fixes.add(new UpdateOneModel<>(
+                    new Document("property_id", propertyId)
+                        .append("cleanliness_sum", current.get("cleanliness_sum"))
+                        .append("satisfaction_sum", current.get("satisfaction_sum"))
+                        .append("total_reviews", current.get("total_reviews")),
+                    new Document("$set", corrected)));
+            }
+        }
+
+        if (fixes.isEmpty()) {
+            return;
+        }
+        BulkWriteResult result;
+        try {
+            result = mongoTemplate.getCollection("property_ratings").bulkWrite(fixes, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            result = e.getWriteResult();
+        }
+        int applied = result.getInsertedCount() + result.getModifiedCount();
+        outcome[0] += applied;
+        outcome[1] += fixes.size() - applied;
+    }
+
+    private Document upsertRating(Integer propertyId, List<Document> updatePipeline) {
+        MongoCollection<Document> ratings = mongoTemplate.getCollection("property_ratings");
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+            .upsert(true)
+            .returnDocument(ReturnDocument.AFTER);
+        try {
+            return ratings.findOneAndUpdate(new Document("property_id", propertyId), updatePipeline, options);
+        } catch (MongoCommandException e) {
+            // Two first reviews of the same property both tried to insert; the unique index let one
+            // through, so the retry matches that document and increments it
+            if (e.getErrorCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+            return ratings.findOneAndUpdate(new Document("property_id", propertyId), updatePipeline, options);
+        }
+    }
+
+    private static Document runningSum(String sumField, String averageField) {
+        return new Document("$ifNull", Arrays.asList("$" + sumField,
+            new Document("$multiply", Arrays.asList(
+                new Document("$ifNull", Arrays.asList("$" + averageField, 0)),
+                new Document("$ifNull", Arrays.asList("$total_reviews", 0))))));
+    }
+
+    private static Document roundedAverage(String sumField) {
+        return new Document("$round", Arrays.asList(
+            new Document("$divide", Arrays.asList(sumField, "$total_reviews")), 2));
+    }
+
+    private static boolean sameCount(Object stored, long expected) {
+        return stored instanceof Number && ((Number) stored).doubleValue() == expected;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Smallest and largest property_id that has reviews, or null when there are no reviews
+     */
+    public int[] reviewedPropertyIdRange() {
+        MongoCollection<Document> reviews = mongoTemplate.getCollection("reviews");
+        Document projection = new Document("property_id", 1).append("_id", 0);
+        Document first = reviews.find().projection(projection).sort(new Document("property_id", 1)).limit(1).first();
+        Document last = reviews.find().projection(projection).sort(new Document("property_id", -1)).limit(1).first();
+        if (first == null || last == null) {
+            return null;
+        }
+        return new int[] {first.getInteger("property_id"), last.getInteger("property_id")};
+    }
+
+    /**
+     * Recalculate the ratings of every property in [fromPropertyId, toPropertyId] with one server-side
+     * pipeline: reviews are grouped per property and written into property_ratings by $merge, so no
+     * review or rating travels to the application. Running sums are rewritten along with the averages.
+     */
+    public Map<String, Object> mergePropertyRatings(int fromPropertyId, int toPropertyId) {
+        long start = System.nanoTime();
+        Document range = new Document("property_id", new Document("$gte", fromPropertyId).append("$lte", toPropertyId));
+        try {
+            List<Document> mergePipeline = Arrays.asList(
+                new Document("$match", range),
+                new Document("$group", new Document()
+                    .append("_id", "$property_id")
+                    .append("cleanliness_sum", new Document("$sum", "$cleanliness_rating"))
+                    .append("satisfaction_sum", new Document("$sum", "$guest_satisfaction"))
+                    .append("total_reviews", new Document("$sum", 1))
+                ),
+                new Document("$project", new Document()
+                    .append("_id", 0)
+                    .append("property_id", "$_id")
+                    .append("avg_cleanliness_rating", roundedAverage("$cleanliness_sum"))
+                    .append("avg_satisfaction_rating", roundedAverage("$satisfaction_sum"))
+                    .append("total_reviews", 1)
+                    .append("cleanliness_sum", 1)
+                    .append("satisfaction_sum", 1)
+                    .append("last_updated", "$$NOW")
+                ),
+                // Matching on property_id relies on the unique property_id index of property_ratings
+                new Document("$merge", new Document()
+                    .append("into", "property_ratings")
+                    .append("on", "property_id")
+                    .append("whenMatched", "merge")
+                    .append("whenNotMatched", "insert"))
+            );
+
+            mongoTemplate.getCollection("reviews")
+                .aggregate(mergePipeline)
+                .allowDiskUse(true)
+                .toCollection();
+
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("success", true);
-            response.put("total_properties", propertyResults.size());
-            response.put("processed_successfully", processed);
-            response.put("message", "Batch rating recalculation completed");
+            response.put("from_property_id", fromPropertyId);
+            response.put("to_property_id", toPropertyId);
+            response.put("properties", mongoTemplate.getCollection("property_ratings").countDocuments(range));
+            response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
             return response;
         } catch (Exception e) {
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("success", false);
-            response.put("error", "Batch processing error: " + e.getMessage());
+            response.put("from_property_id", fromPropertyId);
+            response.put("to_property_id", toPropertyId);
+            response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+            response.put("error", "Rating merge error: " + e.getMessage());
             return response;
         }
     }
@@ -1,17 +1,27 @@
 package com.airbnb.backend.repository;
 
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
@@ -24,33 +34,30 @@ public class ReviewRepository {
      * Get reviews for a property with pagination, sorting, and filtering
      */
     public Map<String, Object> getPropertyReviews(Integer propertyId, Integer limit, Integer skip, String sortBy, String sortOrder) {
+        return getPropertyReviews(propertyId, limit, skip, null, sortBy, sortOrder);
+    }
+
+    /**
+     * Get reviews for a property, one page at a time. With a pageToken from the previous response the
+     * query seeks past the last review seen on the (property_id, sort field, _id) index instead of
+     * skipping, so every page costs the same as the first; skip is only applied without a token.
+     */
+    public Map<String, Object> getPropertyReviews(Integer propertyId, Integer limit, Integer skip, String pageToken,
+                                                  String sortBy, String sortOrder) {
         try {
             limit = limit != null ? limit : 10;
             skip = skip != null ? skip : 0;
             sortBy = sortBy != null ? sortBy : "created_at";
             sortOrder = sortOrder != null ? sortOrder : "desc";
             
-            String validatedSortBy = validateSortField(sortBy);
-            int sortDirection = "asc".equalsIgnoreCase(sortOrder) ? 1 : -1;
+            ReviewSort sort = new ReviewSort(validateSortField(sortBy), "asc".equalsIgnoreCase(sortOrder) ? 1 : -1);
+            Document match = new Document("property_id", propertyId);
             
-            // Aggregation pipeline for review retrieval with computed fields
-            List<Document> reviewRetrievalPipeline = Arrays.asList(
-                new Document("$match", new Document("property_id", propertyId)),
-                new Document("$addFields", new Document()
-                    .append("review_age_days", new Document("$divide", Arrays.asList(
-                        new Document("$subtract", Arrays.asList(new java.util.Date(), "$created_at")),
-                        86400000
-                    )))
-                    .append("overall_rating", new Document("$avg", Arrays.asList("$cleanliness_rating", "$guest_satisfaction")))
-                ),
-                new Document("$sort", new Document(validatedSortBy, sortDirection)),
-                new Document("$skip", skip),
-                new Document("$limit", limit)
-            );
-            
-            List<Document> reviews = mongoTemplate.getCollection("reviews")
-                .aggregate(reviewRetrievalPipeline)
-                .into(new java.util.ArrayList<>());
+            List<Document> reviews = findPage(match, sort, limit, skip, pageToken);
+            boolean hasMore = reviews.size() > limit;
+            if (hasMore) {
+                reviews.remove((int) limit);
+            }
             
             // Get total count for pagination
             long totalReviews = mongoTemplate.count(
@@ -64,6 +71,7 @@ public class ReviewRepository {
             response.put("reviews", reviews);
             response.put("total_count", totalReviews);
             response.put("returned_count", reviews.size());
+            response.put("next_page_token", hasMore ? sort.tokenAfter(reviews.get(reviews.size() - 1)) : null);
             
             return response;
         } catch (Exception e) {
@@ -79,6 +87,16 @@ public class ReviewRepository {
      * Add a new review
      */
     public Map<String, Object> addReview(Integer propertyId, Integer bookingId, Integer cleanlinessRating, Integer satisfactionRating, String comment) {
+        return addReview(propertyId, bookingId, cleanlinessRating, satisfactionRating, comment, null);
+    }
+
+    /**
+     * Add a new review with a snapshot of the guest and property taken from the booking, so that reading
+     * the review later needs no MySQL lookup. Without a snapshot the review is stored as before and picked
+     * up by the backfill.
+     */
+    public Map<String, Object> addReview(Integer propertyId, Integer bookingId, Integer cleanlinessRating, Integer satisfactionRating,
+                                         String comment, Map<String, Object> snapshot) {
         try {
             Document review = new Document()
                 .append("property_id", propertyId)
@@ -86,7 +104,12 @@ public class ReviewRepository {
                 .append("cleanliness_rating", cleanlinessRating)
                 .append("guest_satisfaction", satisfactionRating)
                 .append("text_comment", comment)
+                // Stored so the overall_rating sort can use an index
+                .append("overall_rating", overallRating(cleanlinessRating, satisfactionRating))
                 .append("created_at", new java.util.Date());
+            if (snapshot != null) {
+                review.putAll(snapshotFields(snapshot));
+            }
             
             mongoTemplate.insert(review, "reviews");
             
@@ -97,6 +120,7 @@ public class ReviewRepository {
             response.put("review_id", review.getObjectId("_id").toString());
             response.put("cleanliness_rating", cleanlinessRating);
             response.put("guest_satisfaction", satisfactionRating);
+            response.put("guest_snapshot", snapshot != null);
             response.put("message", "Review added successfully");
             return response;
         } catch (Exception e) {
@@ -105,22 +129,110 @@ public class ReviewRepository {
             response.put("property_id", propertyId);
             response.put("booking_id", bookingId);
             response.put("error", "Review insertion error: " + e.getMessage());
+            response.put("retryable", true);
             return response;
         }
     }
     
     /**
-     * Get all reviews with advanced filtering
+     * Up to {@code limit} reviews without a guest snapshot and with _id after {@code afterId}, in _id
+     * order; only _id and booking_id are returned
+     */
+    public List<Document> findReviewsWithoutSnapshot(ObjectId afterId, int limit) {
+        Document filter = new Document("guest_id", new Document("$exists", false));
+        if (afterId != null) {
+            filter.append("_id", new Document("$gt", afterId));
+        }
+        return mongoTemplate.getCollection("reviews")
+            .find(filter)
+            .projection(new Document("booking_id", 1))
+            .sort(new Document("_id", 1))
+            .limit(limit)
+            .into(new ArrayList<>());
+    }
+
+    /**
+     * Write guest snapshots into existing reviews with one unordered bulk write
+     */
+    public int applySnapshots(Map<ObjectId, Map<String, Object>> snapshots) {
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        List<WriteModel<Document>> updates = new ArrayList<>(snapshots.size());
+        for (Map.Entry<ObjectId, Map<String, Object>> entry : snapshots.entrySet()) {
+            updates.add(new UpdateOneModel<>(
+                new Document("_id", entry.getKey()),
+                new Document("$set", snapshotFields(entry.getValue()))));
+        }
+        return mongoTemplate.getCollection("reviews")
+            .bulkWrite(updates, new BulkWriteOptions().ordered(false))
+            .getModifiedCount();
+    }
+
+    /**
+     * Rewrite the embedded name in every review written by the guest. Served by the guest_id index.
+     */
+    public long updateGuestSnapshot(int guestId, String guestName) {
+        return mongoTemplate.getCollection("reviews")
+            .updateMany(new Document("guest_id", guestId), new Document("$set", new Document("guest_name", guestName)))
+            .getModifiedCount();
+    }
+
+    /**
+     * Hands every guest_id embedded in reviews to the consumer, in lists of at most {@code batchSize},
+     * from one streamed $group over the guest_id index
+     */
+    public void forEachGuestIdBatch(int batchSize, Consumer<List<Integer>> consumer) {
+        List<Document> pipeline = Arrays.asList(
+            new Document("$match", new Document("guest_id", new Document("$type", "int"))),
+            new Document("$group", new Document("_id", "$guest_id")));
+        List<Integer> batch = new ArrayList<>(batchSize);
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection("reviews")
+                .aggregate(pipeline).allowDiskUse(true).batchSize(batchSize).iterator()) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next().getInteger("_id"));
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Set the embedded name of each guest's reviews to the given one with one unordered bulk write;
+     * reviews that already carry it are not rewritten
+     */
+    public long syncGuestNames(Map<Integer, String> names) {
+        if (names.isEmpty()) {
+            return 0;
+        }
+        List<WriteModel<Document>> updates = new ArrayList<>(names.size());
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            updates.add(new UpdateManyModel<>(
+                new Document("guest_id", entry.getKey()).append("guest_name", new Document("$ne", entry.getValue())),
+                new Document("$set", new Document("guest_name", entry.getValue()))));
+        }
+        return mongoTemplate.getCollection("reviews")
+            .bulkWrite(updates, new BulkWriteOptions().ordered(false))
+            .getModifiedCount();
+    }
+    
+    /**
+     * Get all reviews with advanced filtering; pageToken works as in {@link #getPropertyReviews}
      */
-    public Map<String, Object> getAllReviews(Integer limit, Integer skip, String sortBy, String sortOrder, Integer minRating, Integer maxRating) {
+    public Map<String, Object> getAllReviews(Integer limit, Integer skip, String pageToken, String sortBy, String sortOrder,
+                                             Integer minRating, Integer maxRating) {
         try {
             limit = limit != null ? limit : 20;
             skip = skip != null ? skip : 0;
             sortBy = sortBy != null ? sortBy : "created_at";
             sortOrder = sortOrder != null ? sortOrder : "desc";
             
-            String validatedSortBy = validateSortField(sortBy);
-            int sortDirection = "asc".equalsIgnoreCase(sortOrder) ? 1 : -1;
+            ReviewSort sort = new ReviewSort(validateSortField(sortBy), "asc".equalsIgnoreCase(sortOrder) ? 1 : -1);
             
             // Build dynamic match criteria
             Document matchCriteria = new Document();
@@ -131,38 +243,21 @@ public class ReviewRepository {
                 matchCriteria.append("guest_satisfaction", ratingFilter);
             }
             
-            // Aggregation pipeline with conditional filtering
-            List<Document> pipeline = Arrays.asList(
-                new Document("$match", matchCriteria),
-                new Document("$addFields", new Document()
-                    .append("overall_rating", new Document("$avg", Arrays.asList("$cleanliness_rating", "$guest_satisfaction")))
-                ),
-                new Document("$sort", new Document(validatedSortBy, sortDirection)),
-                new Document("$skip", skip),
-                new Document("$limit", limit)
-            );
-            
-            List<Document> reviews = mongoTemplate.getCollection("reviews")
-                .aggregate(pipeline)
-                .into(new java.util.ArrayList<>());
+            List<Document> reviews = findPage(matchCriteria, sort, limit, skip, pageToken);
+            boolean hasMore = reviews.size() > limit;
+            if (hasMore) {
+                reviews.remove((int) limit);
+            }
             
             // Count total with same filters
-            List<Document> countPipeline = Arrays.asList(
-                new Document("$match", matchCriteria),
-                new Document("$count", "total")
-            );
-            
-            List<Document> countResult = mongoTemplate.getCollection("reviews")
-                .aggregate(countPipeline)
-                .into(new java.util.ArrayList<>());
-            
-            long totalReviews = !countResult.isEmpty() ? countResult.get(0).getInteger("total") : 0;
+            long totalReviews = mongoTemplate.getCollection("reviews").countDocuments(matchCriteria);
             
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("success", true);
             response.put("reviews", reviews);
             response.put("total_count", totalReviews);
             response.put("returned_count", reviews.size());
+            response.put("next_page_token", hasMore ? sort.tokenAfter(reviews.get(reviews.size() - 1)) : null);
             
             return response;
         } catch (Exception e) {
@@ -172,6 +267,33 @@ public class ReviewRepository {
             return response;
         }
     }
+
+    /**
+     * One page plus one extra review (to tell whether another page exists), sorted on a stored field
+     * with _id as tie-breaker so the compound indexes from init.js serve both the sort and the seek
+     */
+    private List<Document> findPage(Document match, ReviewSort sort, int limit, int skip, String pageToken) {
+        List<Document> pipeline = new ArrayList<>();
+        if (pageToken != null && !pageToken.isBlank()) {
+            pipeline.add(new Document("$match", new Document("$and", Arrays.asList(match, sort.seekPast(pageToken)))));
+        } else {
+            pipeline.add(new Document("$match", match));
+        }
+        pipeline.add(new Document("$sort", new Document(sort.field, sort.direction).append("_id", sort.direction)));
+        if ((pageToken == null || pageToken.isBlank()) && skip > 0) {
+            pipeline.add(new Document("$skip", skip));
+        }
+        pipeline.add(new Document("$limit", limit + 1));
+        // Only the returned page pays for the age computation
+        pipeline.add(new Document("$addFields", new Document("review_age_days", new Document("$divide", Arrays.asList(
+                new Document("$subtract", Arrays.asList(new Date(), "$created_at")),
+                86400000
+        )))));
+
+        return mongoTemplate.getCollection("reviews")
+            .aggregate(pipeline)
+            .into(new ArrayList<>());
+    }
     
     /**
      * Get advanced analytics for a property's reviews
@@ -274,6 +396,23 @@ public class ReviewRepository {
         }
     }
     
+    // Fields copied from a GetGuestInfoFromBookings row into the review document. Review listings return
+    // whole documents, so the guest's email and what they paid stay out; only the enrichment path shows them.
+    private static Document snapshotFields(Map<String, Object> snapshot) {
+        return new Document()
+            .append("guest_id", snapshot.get("guest_id"))
+            .append("guest_name", snapshot.get("guest_name"))
+            .append("property_city", snapshot.get("property_city"))
+            .append("room_type", snapshot.get("room_type"));
+    }
+
+    private static Double overallRating(Integer cleanlinessRating, Integer satisfactionRating) {
+        if (cleanlinessRating == null || satisfactionRating == null) {
+            return null;
+        }
+        return (cleanlinessRating + satisfactionRating) / 2.0;
+    }
+
     /**
      * Validate sort field to prevent injection
      */
@@ -284,12 +423,66 @@ public class ReviewRepository {
             case "guest_satisfaction":
             case "overall_rating":
             case "review_age_days":
-                return sortBy;
+                return sortBy.toLowerCase();
             default:
                 return "created_at";
         }
     }
 
+    /**
+     * A validated sort on a stored, indexed field. review_age_days changes every day, so it is served
+     * as created_at in the opposite direction; overall_rating is stored by addReview.
+     */
+    private static final class ReviewSort {
+
+        final String field;
+        final int direction;
+
+        ReviewSort(String sortBy, int direction) {
+            boolean byAge = "review_age_days".equals(sortBy);
+            this.field = byAge ? "created_at" : sortBy;
+            this.direction = byAge ? -direction : direction;
+        }
+
+        /** Opaque token holding the sort and the (sort value, _id) of the last review on the page */
+        String tokenAfter(Document last) {
+            Document position = new Document("f", field)
+                .append("d", direction)
+                .append("v", last.get(field))
+                .append("id", last.getObjectId("_id"));
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** Filter for the reviews that come after the token's position in this sort order */
+        Document seekPast(String token) {
+            Document position;
+            try {
+                position = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid pageToken");
+            }
+            if (!field.equals(position.getString("f")) || !Integer.valueOf(direction).equals(position.getInteger("d"))) {
+                throw new IllegalArgumentException("pageToken was issued for a different sortBy/sortOrder");
+            }
+            String beyond = direction > 0 ? "$gt" : "$lt";
+            Object value = position.get("v");
+            Document sameValueLaterId = new Document(field, value).append("_id", new Document(beyond, position.getObjectId("id")));
+
+            // Null and missing values sort before every other value, and $gt/$lt never match them
+            if (value == null) {
+                return direction > 0
+                    ? new Document("$or", Arrays.asList(sameValueLaterId, new Document(field, new Document("$ne", null))))
+                    : sameValueLaterId;
+            }
+            List<Document> after = new ArrayList<>(Arrays.asList(new Document(field, new Document(beyond, value)), sameValueLaterId));
+            if (direction < 0) {
+                after.add(new Document(field, null));
+            }
+            return new Document("$or", after);
+        }
+    }
+
     public List<Map<String, Object>> getReviewsByBookingIds(List<Integer> bookingIds) {
         Query query = new Query(Criteria.where("booking_id").in(bookingIds));
         List<org.bson.Document> documents = mongoTemplate.find(query, org.bson.Document.class, "reviews");
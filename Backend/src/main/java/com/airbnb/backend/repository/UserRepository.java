@@ -0,0 +1,46 @@
+package com.airbnb.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+public class UserRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Current names of the given users with a single GetUserNamesByIds call, keyed by user ID.
+     * Users that do not exist are absent from the result.
+     */
+    public Map<Integer, String> getUserNames(Collection<? extends Integer> userIds) {
+        Map<Integer, String> names = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return names;
+        }
+        String idArray = userIds.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+
+        try (var conn = jdbcTemplate.getDataSource().getConnection();
+             var stmt = conn.prepareCall("{CALL GetUserNamesByIds(?)}")) {
+
+            stmt.setString(1, idArray);
+
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    names.put(rs.getInt("ID"), rs.getString("Name"));
+                }
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error calling stored procedure GetUserNamesByIds", e);
+        }
+
+        return names;
+    }
+}
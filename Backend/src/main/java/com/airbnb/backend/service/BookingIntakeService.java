@@ -0,0 +1,284 @@
+package com.airbnb.backend.service;
+
+import com.airbnb.backend.availability.AvailabilityCalendar;
+import com.airbnb.backend.availability.BookingOverlapException;
+import com.airbnb.backend.dto.BookingBulkItemResultDTO;
+import com.airbnb.backend.dto.BookingBulkResultDTO;
+import com.airbnb.backend.dto.BookingCreateDTO;
+import com.airbnb.backend.dto.BookingIntakeStatusDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous booking intake. Requests are checked in memory, put on a bounded queue and answered
+ * right away with a ticket; worker threads drain the queue in batches through
+ * {@link BookingService#addBookings}, so a burst of N requests costs N / batch-size connections instead
+ * of one connection per request. A full queue is rejected immediately rather than left to time out.
+ * Queue depth is published as booking.intake.queue.depth, time spent queued as booking.intake.wait
+ * and full-queue rejections as booking.intake.rejected.
+ * <p>
+ * On shutdown the intake stops after the web server, so no new requests arrive. Workers then drain what is
+ * still queued for up to {@code booking-intake.shutdown-timeout-seconds}. Tickets that are still queued or
+ * in flight after that are marked {@value #FAILED}, so none of them is left {@value #QUEUED}.
+ * <p>
+ * Ticket statuses live in memory only: after a restart every earlier ticket is unknown, including those
+ * marked {@value #FAILED} on shutdown, whose bookings may or may not have been created.
+ */
+@Service
+public class BookingIntakeService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIntakeService.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    private final BookingService bookingService;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final BlockingQueue<Ticket> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final int workerCount;
+    private final long shutdownTimeoutSeconds;
+    // Tickets taken off the queue by a worker whose batch has not finished yet
+    private final Set<Ticket> inFlight = ConcurrentHashMap.newKeySet();
+    private ExecutorService workers;
+    // Finished tickets stay pollable for an hour; queued ones are bounded by the queue capacity
+    private final Cache<String, BookingIntakeStatusDTO> statuses;
+    private final Timer waitTimer;
+    private final Counter rejectedFull;
+    private volatile boolean running;
+
+    public BookingIntakeService(BookingService bookingService,
+                                AvailabilityCalendar availabilityCalendar,
+                                MeterRegistry meterRegistry,
+                                @Value("${booking-intake.capacity:10000}") int capacity,
+                                @Value("${booking-intake.workers:4}") int workerCount,
+                                @Value("${booking-intake.batch-size:250}") int batchSize,
+                                @Value("${booking-intake.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.bookingService = bookingService;
+        this.availabilityCalendar = availabilityCalendar;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, Math.min(batchSize, BookingService.MAX_BULK_BOOKINGS));
+        this.workerCount = Math.max(1, workerCount);
+        this.shutdownTimeoutSeconds = Math.max(0, shutdownTimeoutSeconds);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(this.capacity * 10L)
+                .expireAfterWrite(Duration.ofHours(1))
+                .build();
+
+        Gauge.builder("booking.intake.queue.depth", queue, BlockingQueue::size)
+                .description("Booking requests waiting in the async intake queue")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("booking.intake.wait")
+                .description("Time a booking request spent queued before a worker picked it up")
+                .register(meterRegistry);
+        this.rejectedFull = Counter.builder("booking.intake.rejected")
+                .description("Booking requests turned away because the intake queue was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "booking-intake-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * Stops taking requests and lets the workers finish the queue; whatever is left after the timeout is
+     * marked failed
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+
+        List<Ticket> unfinished = new ArrayList<>(inFlight);
+        queue.drainTo(unfinished);
+        for (Ticket ticket : unfinished) {
+            BookingIntakeStatusDTO status = status(ticket.id, FAILED);
+            status.setError("The server shut down before the booking was processed; it may or may not have been created.");
+            statuses.put(ticket.id, status);
+        }
+        if (!unfinished.isEmpty()) {
+            log.warn("Booking intake stopped with {} unprocessed requests marked failed", unfinished.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Below the web server's phases: started before it accepts requests, stopped after it stops accepting them
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Validates the request and queues it.
+     *
+     * @return the ticket, initially {@value #QUEUED}
+     * @throws IllegalArgumentException if the request is malformed
+     * @throws BookingOverlapException if the calendar already shows an overlapping stay
+     * @throws BookingQueueFullException if the queue has no free slot
+     * @throws BookingIntakeStoppedException if the intake is shutting down
+     */
+    public BookingIntakeStatusDTO submit(BookingCreateDTO booking) {
+        if (!running) {
+            throw new BookingIntakeStoppedException();
+        }
+        String error = BookingService.validateDates(booking);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        if (availabilityCalendar.isLoaded()) {
+            Integer conflict = availabilityCalendar.findOverlap(
+                    booking.getPropertyId(), booking.getBookingStart(), booking.getBookingEnd(), null);
+            if (conflict != null) {
+                throw new BookingOverlapException(conflict);
+            }
+        }
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), booking);
+        BookingIntakeStatusDTO status = status(ticket.id, QUEUED);
+        statuses.put(ticket.id, status);
+        if (!queue.offer(ticket)) {
+            statuses.invalidate(ticket.id);
+            rejectedFull.increment();
+            throw new BookingQueueFullException(capacity);
+        }
+        // Stopped while offering: take the ticket back unless a worker or stop() already has it
+        if (!running && queue.remove(ticket)) {
+            statuses.invalidate(ticket.id);
+            throw new BookingIntakeStoppedException();
+        }
+        return status;
+    }
+
+    /**
+     * Current state of a ticket, or null if it is unknown or expired
+     */
+    public BookingIntakeStatusDTO getStatus(String ticketId) {
+        return statuses.getIfPresent(ticketId);
+    }
+
+    // Runs until the intake is stopped and the queue is empty
+    private void drain() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                inFlight.addAll(batch);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Booking intake batch of {} failed", batch.size(), e);
+                for (Ticket ticket : batch) {
+                    BookingIntakeStatusDTO status = status(ticket.id, FAILED);
+                    status.setError(e.getMessage());
+                    statuses.put(ticket.id, status);
+                }
+            } finally {
+                batch.forEach(inFlight::remove);
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Ticket> batch) {
+        long now = System.nanoTime();
+        List<BookingCreateDTO> bookings = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            waitTimer.record(now - ticket.enqueuedNanos, TimeUnit.NANOSECONDS);
+            bookings.add(ticket.booking);
+        }
+
+        BookingBulkResultDTO result = bookingService.addBookings(bookings);
+        for (BookingBulkItemResultDTO item : result.getResults()) {
+            Ticket ticket = batch.get(item.getIndex());
+            BookingIntakeStatusDTO status = status(ticket.id, item.isSuccess() ? CREATED : REJECTED);
+            status.setBookingId(item.getBookingId());
+            status.setPrice(item.getPrice());
+            // Items of one drained batch were queued independently, so "item n of this batch" means nothing to the client
+            status.setError(item.getReason() == BookingBulkItemResultDTO.Reason.OVERLAPS_EARLIER_ITEM
+                    ? "Booking dates overlap with an earlier queued booking."
+                    : item.getError());
+            status.setWaitMillis((now - ticket.enqueuedNanos) / 1_000_000);
+            statuses.put(ticket.id, status);
+        }
+    }
+
+    private static BookingIntakeStatusDTO status(String ticketId, String state) {
+        BookingIntakeStatusDTO status = new BookingIntakeStatusDTO();
+        status.setTicketId(ticketId);
+        status.setStatus(state);
+        return status;
+    }
+
+    private static final class Ticket {
+
+        final String id;
+        final BookingCreateDTO booking;
+        final long enqueuedNanos = System.nanoTime();
+
+        Ticket(String id, BookingCreateDTO booking) {
+            this.id = id;
+            this.booking = booking;
+        }
+    }
+}
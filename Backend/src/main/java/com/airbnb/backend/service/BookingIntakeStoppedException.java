@@ -0,0 +1,11 @@
+package com.airbnb.backend.service;
+
+/**
+ * The async booking intake is shutting down and takes no more requests; the client should retry later
+ */
+public class BookingIntakeStoppedException extends RuntimeException {
+
+    public BookingIntakeStoppedException() {
+        super("Booking intake is not accepting requests, retry later.");
+    }
+}
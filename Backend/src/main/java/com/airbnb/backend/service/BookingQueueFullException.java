@@ -0,0 +1,11 @@
+package com.airbnb.backend.service;
+
+/**
+ * The async booking intake queue has no free slot; the client should retry later
+ */
+public class BookingQueueFullException extends RuntimeException {
+
+    public BookingQueueFullException(int capacity) {
+        super("Booking intake queue is full (" + capacity + " pending requests), retry later.");
+    }
+}
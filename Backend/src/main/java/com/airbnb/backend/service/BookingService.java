@@ -1,23 +1,85 @@
 package com.airbnb.backend.service;
 
+import com.airbnb.backend.analytics.RevenueRollup;
+import com.airbnb.backend.availability.AvailabilityCalendar;
+import com.airbnb.backend.availability.BookingOverlapException;
+import com.airbnb.backend.availability.CompletedBookings;
+import com.airbnb.backend.availability.PropertyLocks;
+import com.airbnb.backend.dto.BookingBulkItemResultDTO;
+import com.airbnb.backend.dto.BookingBulkResultDTO;
+import com.airbnb.backend.dto.BookingCreateDTO;
 import com.airbnb.backend.dto.BookingDTO;
+import com.airbnb.backend.dto.BookingPageDTO;
+import com.airbnb.backend.dto.BookingSearchCriteria;
 import com.airbnb.backend.dto.BookingUpdateDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 public class BookingService {
 
+    public static final int MAX_BULK_BOOKINGS = 1000;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Set<String> STATUSES = Set.of("completed", "active", "upcoming");
+
+    // Rows per JDBC batch and transaction in addBookings
+    private static final int BULK_CHUNK_SIZE = 250;
+
+    private static final String OVERLAP_MESSAGE = "Booking dates overlap with an existing booking.";
+
     @Autowired
     private DataSource dataSource;
 
-    public void addBooking(int propertyId, int guestId, java.time.LocalDate start, java.time.LocalDate end) {
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Autowired
+    private PropertyLocks propertyLocks;
+
+    @Autowired
+    private CompletedBookings completedBookings;
+
+    @Autowired
+    private RevenueRollup revenueRollup;
+
+    /**
+     * Rejects overlapping stays from the in-memory calendar before calling AddBooking; the
+     * prevent_overlapping_booking trigger still runs as the final guard. The check and the insert run
+     * under the property's lock, so concurrent requests for the same property cannot both pass.
+     *
+     * @return the new booking ID
+     */
+    public int addBooking(int propertyId, int guestId, java.time.LocalDate start, java.time.LocalDate end) {
+        return propertyLocks.withLock(propertyId, () -> {
+            checkAvailable(propertyId, start, end, null);
+            BookingDTO booking = callAddBooking(propertyId, guestId, start, end);
+            availabilityCalendar.book(booking.getId(), propertyId, start, end);
+            completedBookings.record(booking.getId(), end);
+            revenueRollup.record(booking.getId(), propertyId, booking.getPrice(), start, end);
+            return booking.getId();
+        });
+    }
+
+    private BookingDTO callAddBooking(int propertyId, int guestId, LocalDate start, LocalDate end) {
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall("{CALL AddBooking(?, ?, ?, ?)}")) {
 
@@ -26,38 +88,447 @@ public class BookingService {
             stmt.setDate(3, Date.valueOf(start));
             stmt.setDate(4, Date.valueOf(end));
 
-            stmt.execute();
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new RuntimeException("AddBooking did not return the new booking ID");
+                }
+                BookingDTO booking = new BookingDTO();
+                booking.setId(rs.getInt("ID"));
+                booking.setPropertyId(propertyId);
+                booking.setGuestId(guestId);
+                booking.setPrice(rs.getBigDecimal("Price"));
+                booking.setBookingStart(start);
+                booking.setBookingEnd(end);
+                return booking;
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure AddBooking", e);
         }
     }
 
-    public List<BookingDTO> getAllBookings() {
-        List<BookingDTO> bookings = new ArrayList<>();
+    /**
+     * Creates many bookings at once. Every item is validated in memory first: dates, property and guest
+     * existence (one set-based query each), overlaps with existing bookings and with earlier items of the
+     * same batch (the earlier item wins). Accepted items are inserted with JDBC batching, one transaction
+     * per {@value #BULK_CHUNK_SIZE} rows; a chunk that fails is retried row by row so that only the
+     * offending items are rejected. Results are returned in request order.
+     */
+    public BookingBulkResultDTO addBookings(List<BookingCreateDTO> bookings) {
+        if (bookings.size() > MAX_BULK_BOOKINGS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_BOOKINGS + " bookings per request");
+        }
+        long startNanos = System.nanoTime();
+        BookingBulkItemResultDTO[] results = new BookingBulkItemResultDTO[bookings.size()];
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            String error = validateDates(bookings.get(i));
+            if (error != null) {
+                results[i] = rejected(i, BookingBulkItemResultDTO.Reason.INVALID_REQUEST, error);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        Map<Integer, BigDecimal> nightlyPrices = loadNightlyPrices(
+                candidates.stream().map(i -> bookings.get(i).getPropertyId()).collect(Collectors.toSet()));
+        Set<Integer> guests = loadExistingUsers(
+                candidates.stream().map(i -> bookings.get(i).getGuestId()).collect(Collectors.toSet()));
+
+        // Every property in the batch stays locked from the overlap check until its rows are committed
+        Set<Integer> propertyIds = candidates.stream().map(i -> bookings.get(i).getPropertyId()).collect(Collectors.toSet());
+        propertyLocks.withLocks(propertyIds, () -> {
+            reserveAndInsert(bookings, candidates, nightlyPrices, guests, results);
+            return null;
+        });
+
+        BookingBulkResultDTO result = new BookingBulkResultDTO();
+        result.setResults(Arrays.asList(results));
+        result.setCreated((int) Arrays.stream(results).filter(BookingBulkItemResultDTO::isSuccess).count());
+        result.setRejected(results.length - result.getCreated());
+        result.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        return result;
+    }
+
+    private void reserveAndInsert(List<BookingCreateDTO> bookings, List<Integer> candidates,
+                                  Map<Integer, BigDecimal> nightlyPrices, Set<Integer> guests,
+                                  BookingBulkItemResultDTO[] results) {
+        AvailabilityCalendar existing = availabilityCalendar.isLoaded()
+                ? availabilityCalendar
+                : loadCalendarWindow(candidates.stream().map(bookings::get).collect(Collectors.toList()));
+        // Accepted items of this batch, keyed by -(index + 1) so they cannot collide with real booking IDs
+        AvailabilityCalendar batch = new AvailabilityCalendar();
+
+        List<Integer> accepted = new ArrayList<>();
+        BigDecimal[] prices = new BigDecimal[bookings.size()];
+        for (int i : candidates) {
+            BookingCreateDTO booking = bookings.get(i);
+            BigDecimal nightlyPrice = nightlyPrices.get(booking.getPropertyId());
+            if (nightlyPrice == null) {
+                results[i] = rejected(i, BookingBulkItemResultDTO.Reason.PROPERTY_NOT_FOUND, "No Property found with that ID");
+                continue;
+            }
+            if (!guests.contains(booking.getGuestId())) {
+                results[i] = rejected(i, BookingBulkItemResultDTO.Reason.GUEST_NOT_FOUND, "No guest found with that ID");
+                continue;
+            }
+            if (existing.findOverlap(booking.getPropertyId(), booking.getBookingStart(), booking.getBookingEnd(), null) != null) {
+                results[i] = rejected(i, BookingBulkItemResultDTO.Reason.OVERLAPS_EXISTING_BOOKING, OVERLAP_MESSAGE);
+                continue;
+            }
+            Integer clash = batch.findOverlap(booking.getPropertyId(), booking.getBookingStart(), booking.getBookingEnd(), null);
+            if (clash != null) {
+                results[i] = rejected(i, BookingBulkItemResultDTO.Reason.OVERLAPS_EARLIER_ITEM,
+                        "Booking dates overlap with item " + (-clash - 1) + " of this batch.");
+                continue;
+            }
+
+            batch.book(-(i + 1), booking.getPropertyId(), booking.getBookingStart(), booking.getBookingEnd());
+            long nights = ChronoUnit.DAYS.between(booking.getBookingStart(), booking.getBookingEnd());
+            prices[i] = nightlyPrice.multiply(BigDecimal.valueOf(nights));
+            accepted.add(i);
+        }
+
+        for (int from = 0; from < accepted.size(); from += BULK_CHUNK_SIZE) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + BULK_CHUNK_SIZE, accepted.size()));
+            insertChunk(bookings, prices, chunk, results);
+        }
+    }
+
+    /**
+     * One JDBC batch in one transaction. The prevent_overlapping_booking trigger still runs per row, so a
+     * booking written by another instance fails the chunk, which is then retried row by row.
+     */
+    private void insertChunk(List<BookingCreateDTO> bookings, BigDecimal[] prices, List<Integer> chunk,
+                             BookingBulkItemResultDTO[] results) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO Bookings (Property_ID, Guest_ID, Price, Booking_start, Booking_end) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+
+                for (int i : chunk) {
+                    bindInsert(stmt, bookings.get(i), prices[i]);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                List<Integer> ids = new ArrayList<>(chunk.size());
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getInt(1));
+                    }
+                }
+                if (ids.size() != chunk.size()) {
+                    throw new SQLException("Expected " + chunk.size() + " generated booking IDs, got " + ids.size());
+                }
+                conn.commit();
+
+                for (int n = 0; n < chunk.size(); n++) {
+                    recordCreated(bookings, prices, chunk.get(n), ids.get(n), results);
+                }
+                return;
+            } catch (SQLException e) {
+                conn.rollback();
+            }
+
+            conn.setAutoCommit(true);
+            for (int i : chunk) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO Bookings (Property_ID, Guest_ID, Price, Booking_start, Booking_end) VALUES (?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+
+                    bindInsert(stmt, bookings.get(i), prices[i]);
+                    stmt.executeUpdate();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        keys.next();
+                        recordCreated(bookings, prices, i, keys.getInt(1), results);
+                    }
+                } catch (SQLException e) {
+                    results[i] = rejected(i, BookingBulkItemResultDTO.Reason.INSERT_FAILED, e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error inserting bookings", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement stmt, BookingCreateDTO booking, BigDecimal price) throws SQLException {
+        stmt.setInt(1, booking.getPropertyId());
+        stmt.setInt(2, booking.getGuestId());
+        stmt.setBigDecimal(3, price);
+        stmt.setDate(4, Date.valueOf(booking.getBookingStart()));
+        stmt.setDate(5, Date.valueOf(booking.getBookingEnd()));
+    }
+
+    private void recordCreated(List<BookingCreateDTO> bookings, BigDecimal[] prices, int index, int bookingId,
+                               BookingBulkItemResultDTO[] results) {
+        BookingCreateDTO booking = bookings.get(index);
+        availabilityCalendar.book(bookingId, booking.getPropertyId(), booking.getBookingStart(), booking.getBookingEnd());
+        completedBookings.record(bookingId, booking.getBookingEnd());
+        revenueRollup.record(bookingId, booking.getPropertyId(), prices[index],
+                booking.getBookingStart(), booking.getBookingEnd());
+
+        BookingBulkItemResultDTO result = new BookingBulkItemResultDTO();
+        result.setIndex(index);
+        result.setSuccess(true);
+        result.setBookingId(bookingId);
+        result.setPrice(prices[index]);
+        results[index] = result;
+    }
+
+    private static BookingBulkItemResultDTO rejected(int index, BookingBulkItemResultDTO.Reason reason, String error) {
+        BookingBulkItemResultDTO result = new BookingBulkItemResultDTO();
+        result.setIndex(index);
+        result.setSuccess(false);
+        result.setReason(reason);
+        result.setError(error);
+        return result;
+    }
+
+    /** Same checks AddBooking makes before touching any table; null when the item is well formed */
+    static String validateDates(BookingCreateDTO booking) {
+        if (booking == null || booking.getPropertyId() == null || booking.getGuestId() == null) {
+            return "propertyId and guestId must be provided";
+        }
+        if (booking.getBookingStart() == null || booking.getBookingEnd() == null) {
+            return "Start and end date must be provided";
+        }
+        if (!booking.getBookingEnd().isAfter(booking.getBookingStart())) {
+            return "End date must be after start date";
+        }
+        return null;
+    }
+
+    private Map<Integer, BigDecimal> loadNightlyPrices(Collection<Integer> propertyIds) {
+        Map<Integer, BigDecimal> prices = new HashMap<>();
+        if (propertyIds.isEmpty()) {
+            return prices;
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT ID, Price FROM Properties WHERE ID IN (" + placeholders(propertyIds.size()) + ")")) {
+
+            bindIds(stmt, propertyIds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    prices.put(rs.getInt("ID"), rs.getBigDecimal("Price"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading property prices", e);
+        }
+        return prices;
+    }
+
+    private Set<Integer> loadExistingUsers(Collection<Integer> userIds) {
+        Set<Integer> existing = new HashSet<>();
+        if (userIds.isEmpty()) {
+            return existing;
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT ID FROM Users WHERE ID IN (" + placeholders(userIds.size()) + ")")) {
+
+            bindIds(stmt, userIds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getInt("ID"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading guests", e);
+        }
+        return existing;
+    }
+
+    /**
+     * Calendar of the existing bookings that could collide with the batch, used while the shared
+     * calendar is not loaded yet
+     */
+    private AvailabilityCalendar loadCalendarWindow(List<BookingCreateDTO> bookings) {
+        AvailabilityCalendar window = new AvailabilityCalendar();
+        if (bookings.isEmpty()) {
+            window.load(List.of());
+            return window;
+        }
+        Set<Integer> propertyIds = bookings.stream().map(BookingCreateDTO::getPropertyId).collect(Collectors.toSet());
+        LocalDate from = bookings.stream().map(BookingCreateDTO::getBookingStart).min(LocalDate::compareTo).get();
+        LocalDate to = bookings.stream().map(BookingCreateDTO::getBookingEnd).max(LocalDate::compareTo).get();
 
+        List<BookingDTO> overlapping = new ArrayList<>();
         try (Connection conn = dataSource.getConnection();
-             CallableStatement stmt = conn.prepareCall("{CALL GetAllBookings()}")) {
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT ID, Property_ID, Guest_ID, Price, Booking_start, Booking_end FROM Bookings " +
+                     "WHERE Property_ID IN (" + placeholders(propertyIds.size()) + ") " +
+                     "AND Booking_start < ? AND Booking_end > ?")) {
 
+            bindIds(stmt, propertyIds);
+            stmt.setDate(propertyIds.size() + 1, Date.valueOf(to));
+            stmt.setDate(propertyIds.size() + 2, Date.valueOf(from));
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    BookingDTO booking = new BookingDTO();
-                    booking.setId(rs.getInt("ID"));
-                    booking.setPropertyId(rs.getInt("Property_ID"));
-                    booking.setGuestId(rs.getInt("Guest_ID"));
-                    booking.setPrice(rs.getBigDecimal("Price"));
-                    booking.setBookingStart(rs.getDate("Booking_start").toLocalDate());
-                    booking.setBookingEnd(rs.getDate("Booking_end").toLocalDate());
-                    bookings.add(booking);
+                    overlapping.add(mapBooking(rs));
                 }
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading existing bookings", e);
+        }
+        window.load(overlapping);
+        return window;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void bindIds(PreparedStatement stmt, Collection<Integer> ids) throws SQLException {
+        int p = 1;
+        for (Integer id : ids) {
+            stmt.setInt(p++, id);
+        }
+    }
+
+    /**
+     * Every booking, read through a streaming cursor; used to load the availability calendar
+     */
+    public void streamAllBookings(Consumer<BookingDTO> consumer) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT ID, Property_ID, Guest_ID, Price, Booking_start, Booking_end FROM Bookings ORDER BY ID",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
 
+            // Integer.MIN_VALUE makes Connector/J stream rows one at a time instead of buffering the result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapBooking(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming bookings", e);
+        }
+    }
+
+    /**
+     * Keyset-paginated listing, most recent stay end first: returns at most {@code limit} bookings after
+     * the (afterEnd, afterId) position. nextAfterEnd/nextAfterId are null once the last page has been
+     * reached. Status is the stored column, so a status filter walks the (Status, Booking_end, ID) index.
+     */
+    public BookingPageDTO listBookings(BookingSearchCriteria criteria) {
+        int pageSize = Math.max(1, Math.min(criteria.getLimit() != null ? criteria.getLimit() : 100, MAX_PAGE_SIZE));
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = listingQuery(criteria, params);
+
+        if (criteria.getAfterEnd() != null && criteria.getAfterId() != null) {
+            // Expanded form of (Booking_end, ID) < (?, ?), which MySQL turns into an index range
+            sql.append(" AND (Booking_end < ? OR (Booking_end = ? AND ID < ?))");
+            params.add(Date.valueOf(criteria.getAfterEnd()));
+            params.add(Date.valueOf(criteria.getAfterEnd()));
+            params.add(criteria.getAfterId());
+        }
+        // Fetch one extra row so we know whether another page exists
+        sql.append(" ORDER BY Booking_end DESC, ID DESC LIMIT ?");
+        params.add(pageSize + 1);
+
+        List<BookingDTO> bookings = new ArrayList<>(pageSize + 1);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.add(mapListedBooking(rs));
+                }
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("Error calling stored procedure GetAllBookings", e);
+            throw new RuntimeException("Error listing bookings", e);
         }
 
-        return bookings;
+        boolean hasMore = bookings.size() > pageSize;
+        if (hasMore) {
+            bookings.remove(pageSize);
+        }
+
+        BookingPageDTO page = new BookingPageDTO();
+        page.setBookings(bookings);
+        page.setLimit(pageSize);
+        if (hasMore) {
+            BookingDTO last = bookings.get(pageSize - 1);
+            page.setNextAfterEnd(last.getBookingEnd());
+            page.setNextAfterId(last.getId());
+        }
+        return page;
     }
 
+    /**
+     * Streams every booking matching the filters, in listing order, from a forward-only cursor;
+     * the keyset position and limit are ignored
+     */
+    public void streamBookings(BookingSearchCriteria criteria, Consumer<BookingDTO> consumer) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = listingQuery(criteria, params).append(" ORDER BY Booking_end DESC, ID DESC");
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Integer.MIN_VALUE makes Connector/J stream rows one at a time instead of buffering the result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapListedBooking(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming bookings", e);
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if the listing filters are invalid; lets the NDJSON export fail
+     * before the response has started
+     */
+    public void validateCriteria(BookingSearchCriteria criteria) {
+        listingQuery(criteria, new ArrayList<>());
+    }
+
+    private static StringBuilder listingQuery(BookingSearchCriteria criteria, List<Object> params) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT ID, Property_ID, Guest_ID, Price, Booking_start, Booking_end, Status FROM Bookings WHERE 1 = 1");
+
+        if (criteria.getStatus() != null) {
+            String status = criteria.getStatus().toLowerCase(Locale.ROOT);
+            if (!STATUSES.contains(status)) {
+                throw new IllegalArgumentException("status must be completed, active or upcoming");
+            }
+            sql.append(" AND Status = ?");
+            params.add(status);
+        }
+        if (criteria.getPropertyId() != null) {
+            sql.append(" AND Property_ID = ?");
+            params.add(criteria.getPropertyId());
+        }
+        if (criteria.getGuestId() != null) {
+            sql.append(" AND Guest_ID = ?");
+            params.add(criteria.getGuestId());
+        }
+        if (criteria.getFrom() != null) {
+            sql.append(" AND Booking_end >= ?");
+            params.add(Date.valueOf(criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            sql.append(" AND Booking_start <= ?");
+            params.add(Date.valueOf(criteria.getTo()));
+        }
+        return sql;
+    }
 
     public BookingDTO getBookingById(int bookingId) {
         try (Connection conn = dataSource.getConnection();
@@ -67,14 +538,7 @@ public class BookingService {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    BookingDTO booking = new BookingDTO();
-                    booking.setId(rs.getInt("ID"));
-                    booking.setPropertyId(rs.getInt("Property_ID"));
-                    booking.setGuestId(rs.getInt("Guest_ID"));
-                    booking.setPrice(rs.getBigDecimal("Price"));
-                    booking.setBookingStart(rs.getDate("Booking_start").toLocalDate());
-                    booking.setBookingEnd(rs.getDate("Booking_end").toLocalDate());
-                    return booking;
+                    return mapBooking(rs);
                 } else {
                     throw new RuntimeException("Booking not found");
                 }
@@ -84,7 +548,35 @@ public class BookingService {
         }
     }
 
+    /**
+     * The overlap check and UpdateBooking run under the property's lock. The property comes from the
+     * calendar, or from GetBooking when the calendar does not know the booking (not loaded yet, or written
+     * by another instance); the prevent_overlapping_booking_update trigger still runs as the final guard.
+     */
     public void updateBooking(int bookingId, BookingUpdateDTO booking) {
+        Integer known = availabilityCalendar.propertyOf(bookingId);
+        int propertyId = known != null ? known : getBookingById(bookingId).getPropertyId();
+        propertyLocks.withLock(propertyId, () -> {
+            checkAvailable(propertyId, booking.getBookingStart(), booking.getBookingEnd(), bookingId);
+            BookingDTO updated = callUpdateBooking(bookingId, booking);
+            availabilityCalendar.book(bookingId, propertyId, booking.getBookingStart(), booking.getBookingEnd());
+            recordUpdate(bookingId, booking, updated);
+            return null;
+        });
+    }
+
+    private void recordUpdate(int bookingId, BookingUpdateDTO booking, BookingDTO updated) {
+        completedBookings.record(bookingId, booking.getBookingEnd());
+        if (updated != null) {
+            revenueRollup.record(bookingId, updated.getPropertyId(), updated.getPrice(),
+                    booking.getBookingStart(), booking.getBookingEnd());
+        }
+    }
+
+    /**
+     * @return the booking's property and new price as reported by UpdateBooking, or null if it reported none
+     */
+    private BookingDTO callUpdateBooking(int bookingId, BookingUpdateDTO booking) {
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall("{CALL UpdateBooking(?, ?, ?)}")) {
 
@@ -102,7 +594,18 @@ public class BookingService {
                 stmt.setNull(3, Types.DATE);
             }
 
-            stmt.execute();
+            if (!stmt.execute()) {
+                return null;
+            }
+            try (ResultSet rs = stmt.getResultSet()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                BookingDTO updated = new BookingDTO();
+                updated.setPropertyId(rs.getInt("Property_ID"));
+                updated.setPrice(rs.getBigDecimal("Price"));
+                return updated;
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure UpdateBooking", e);
         }
@@ -118,6 +621,41 @@ public class BookingService {
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure DeleteBooking", e);
         }
+
+        availabilityCalendar.release(bookingId);
+        completedBookings.remove(bookingId);
+        revenueRollup.release(bookingId);
+    }
+
+    /**
+     * Throws {@link BookingOverlapException} if the calendar knows of a booking overlapping [start, end).
+     * Missing or inverted dates are left for the stored procedure to reject.
+     */
+    private void checkAvailable(int propertyId, LocalDate start, LocalDate end, Integer ignoredBookingId) {
+        if (!availabilityCalendar.isLoaded() || start == null || end == null || !end.isAfter(start)) {
+            return;
+        }
+        Integer conflict = availabilityCalendar.findOverlap(propertyId, start, end, ignoredBookingId);
+        if (conflict != null) {
+            throw new BookingOverlapException(conflict);
+        }
+    }
+
+    private BookingDTO mapListedBooking(ResultSet rs) throws SQLException {
+        BookingDTO booking = mapBooking(rs);
+        booking.setStatus(rs.getString("Status"));
+        return booking;
+    }
+
+    private BookingDTO mapBooking(ResultSet rs) throws SQLException {
+        BookingDTO booking = new BookingDTO();
+        booking.setId(rs.getInt("ID"));
+        booking.setPropertyId(rs.getInt("Property_ID"));
+        booking.setGuestId(rs.getInt("Guest_ID"));
+        booking.setPrice(rs.getBigDecimal("Price"));
+        booking.setBookingStart(rs.getDate("Booking_start").toLocalDate());
+        booking.setBookingEnd(rs.getDate("Booking_end").toLocalDate());
+        return booking;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.airbnb.backend.service;
+
+import com.airbnb.backend.availability.CompletedBookings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+
+/**
+ * Moves the stored Bookings.Status forward at day boundaries: upcoming stays that have started become
+ * active and stays that have ended become completed. Rows are updated in batches of
+ * {@code booking-status.batch-size}, each its own statement, so the job never holds a long lock on
+ * Bookings. After every run the {@link CompletedBookings} set is reloaded from the Status index, together
+ * with the database's current UTC offset. The daily run fires in {@code booking-status.zone}, which should
+ * be the database's time zone (default: the JVM's). A run that fails, or none at all yet, is retried until
+ * one has succeeded for the database's current date.
+ */
+@Service
+public class BookingStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingStatusService.class);
+
+    private static final String COMPLETE_ENDED =
+            "UPDATE Bookings SET Status = 'completed' WHERE Status IN ('upcoming', 'active') AND Booking_end < CURDATE() LIMIT ?";
+    private static final String ACTIVATE_STARTED =
+            "UPDATE Bookings SET Status = 'active' WHERE Status = 'upcoming' AND Booking_start <= CURDATE() LIMIT ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CompletedBookings completedBookings;
+
+    @Value("${booking-status.batch-size:5000}")
+    private int batchSize;
+
+    // Database date of the last successful run, and the zone it was read in
+    private volatile LocalDate transitionedFor;
+    private volatile ZoneId lastDatabaseZone;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void transitionOnStartup() {
+        runTransition();
+    }
+
+    /**
+     * Shortly after midnight, when yesterday's stays have ended and today's have started
+     */
+    @Scheduled(cron = "${booking-status.cron:5 0 0 * * *}", zone = "${booking-status.zone:}")
+    public void transitionAtDayBoundary() {
+        runTransition();
+    }
+
+    @Scheduled(initialDelayString = "${property-index.retry-interval-ms:60000}",
+               fixedDelayString = "${property-index.retry-interval-ms:60000}")
+    public void retryIfBehind() {
+        if (transitionedFor == null || transitionedFor.isBefore(LocalDate.now(lastDatabaseZone))) {
+            runTransition();
+        }
+    }
+
+    public synchronized void runTransition() {
+        long start = System.nanoTime();
+        try {
+            // Read before the updates, so a run that straddles midnight is repeated for the new day
+            ZoneId zone = databaseZone();
+            LocalDate today = LocalDate.now(zone);
+            int completed = updateInBatches(COMPLETE_ENDED);
+            int activated = updateInBatches(ACTIVATE_STARTED);
+            completedBookings.load(loadCompletedIds(), zone);
+            lastDatabaseZone = zone;
+            transitionedFor = today;
+
+            log.info("Booking status transition: {} completed, {} activated, {} completed bookings in memory ({} ms)",
+                    completed, activated, completedBookings.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not run the booking status transition: {}", e.getMessage());
+        }
+    }
+
+    private int updateInBatches(String sql) {
+        int limit = Math.max(1, batchSize);
+        int total = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, limit);
+            int updated;
+            do {
+                updated = stmt.executeUpdate();
+                total += updated;
+            } while (updated == limit);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating booking statuses", e);
+        }
+        return total;
+    }
+
+    // Offset of MySQL's NOW() from UTC, i.e. the zone its CURDATE() is evaluated in
+    private ZoneId databaseZone() {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT TIMESTAMPDIFF(SECOND, UTC_TIMESTAMP(), NOW())");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return ZoneOffset.ofTotalSeconds(rs.getInt(1));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading the database time zone", e);
+        }
+    }
+
+    private BitSet loadCompletedIds() {
+        BitSet ids = new BitSet();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT ID FROM Bookings WHERE Status = 'completed'",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Integer.MIN_VALUE makes Connector/J stream rows one at a time instead of buffering the result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.set(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading completed bookings", e);
+        }
+        return ids;
+    }
+}
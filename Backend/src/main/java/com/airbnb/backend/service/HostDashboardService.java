@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.*;
 
 @Service
@@ -24,7 +25,19 @@ public class HostDashboardService {
     @Autowired
     private ReviewRepository reviewRepository;
 
-    public Map<String, Object> getHostDashboard(int hostId) {
+    public static final int MAX_BOOKINGS_PAGE = 1000;
+
+    /**
+     * Host dashboard with bookings limited to stays touching [from, to] (either bound optional).
+     * Bookings of all the host's properties come from one query, paged with the (afterEnd, afterId)
+     * keyset; the totals are aggregated in SQL over the whole window, not just the page.
+     */
+    public Map<String, Object> getHostDashboard(int hostId, LocalDate from, LocalDate to,
+                                                LocalDate afterEnd, Integer afterId, int limit) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_BOOKINGS_PAGE));
         Map<String, Object> response = new LinkedHashMap<>();
 
         // 1. Host Info (reuse UserService)
@@ -35,31 +48,33 @@ public class HostDashboardService {
         List<Map<String, Object>> properties = propertyService.getPropertiesByHostId(hostId);
         response.put("properties", properties);
 
-        // 3. Bookings across all properties
-        List<Map<String, Object>> allBookings = new ArrayList<>();
-        List<Integer> propertyIds = new ArrayList<>();
-
-        for (Map<String, Object> property : properties) {
-            Integer propertyId = (Integer) property.get("id");
-            propertyIds.add(propertyId);
-            List<Map<String, Object>> propertyBookings = bookingRepository.getBookingsByPropertyId(propertyId);
-            allBookings.addAll(propertyBookings);
+        // 3. One page of bookings across all properties; one extra row tells whether another page exists
+        List<Map<String, Object>> bookings = bookingRepository.getBookingsByHostId(
+                hostId, from, to, afterEnd, afterId, pageSize + 1);
+        boolean hasMore = bookings.size() > pageSize;
+        if (hasMore) {
+            bookings.remove(pageSize);
         }
-        response.put("bookings", allBookings);
+        response.put("bookings", bookings);
+        Map<String, Object> last = hasMore ? bookings.get(pageSize - 1) : null;
+        response.put("next_after_end", last != null ? last.get("booking_end") : null);
+        response.put("next_after_id", last != null ? last.get("booking_id") : null);
 
         // 4. Reviews across those properties
+        List<Integer> propertyIds = new ArrayList<>(properties.size());
+        for (Map<String, Object> property : properties) {
+            propertyIds.add((Integer) property.get("id"));
+        }
         List<Map<String, Object>> reviews = reviewRepository.getReviewsByPropertyIds(propertyIds);
         response.put("reviews", reviews);
 
         // 5. Aggregated stats
-        BigDecimal totalEarnings = allBookings.stream()
-                .map(b -> (BigDecimal) b.get("booking_price"))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        response.put("total_earnings", totalEarnings);
+        Map<String, Object> stats = bookingRepository.getHostBookingStats(hostId, from, to);
+        response.put("total_earnings", stats.getOrDefault("total_earnings", BigDecimal.ZERO));
         response.put("total_properties", properties.size());
-        response.put("total_bookings", allBookings.size());
+        response.put("total_bookings", stats.getOrDefault("total_bookings", 0L));
         response.put("total_reviews", reviews.size());
+        response.put("booking_stats", stats);
 
         return response;
     }
@@ -0,0 +1,387 @@
+package com.airbnb.backend.service;
+
+import com.airbnb.backend.dto.PropertyImportRejectDTO;
+import com.airbnb.backend.dto.PropertyImportResultDTO;
+import com.airbnb.backend.index.PropertyIndexLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk import of listings in the cleaned_airbnb_data.csv format.
+ * The CSV is parsed as a stream and cut into chunks. Each chunk is written by a pool of writer threads,
+ * each with its own connection, as one multi-row INSERT in its own transaction. Host IDs are checked
+ * against a single snapshot of Users taken before the import, instead of the per-row COUNT that
+ * AddProperty runs. The CSV ID column is ignored; new rows get auto-increment IDs as in
+ * 03-insert-statements-properties.sql.
+ */
+@Service
+public class PropertyImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyImportService.class);
+
+    public static final int MAX_REPORTED_REJECTS = 1000;
+
+    // MySQL allows at most 65535 placeholders per statement, 8 per row
+    private static final int MAX_ROWS_PER_STATEMENT = 8000;
+
+    private static final String[] REQUIRED_COLUMNS =
+            {"realSum", "room_type", "person_capacity", "bedrooms", "dist", "metro_dist", "City", "Host_ID"};
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO Properties (Host_ID, Price, Room_type, Person_capacity, Bedrooms, " +
+            "Center_distance, Metro_distance, City) VALUES ";
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("100000000");
+    private static final BigDecimal MAX_DISTANCE = new BigDecimal("1000");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PropertyIndexLoader propertyIndexLoader;
+
+    @Value("${property-import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${property-import.writer-threads:4}")
+    private int writerThreads;
+
+    /**
+     * Imports every valid row of the CSV. Rows that fail validation or the insert are skipped and
+     * reported with their line number; at most {@link #MAX_REPORTED_REJECTS} rejects are listed.
+     */
+    public PropertyImportResultDTO importCsv(InputStream csv) {
+        long start = System.nanoTime();
+        int rowsPerChunk = Math.max(1, Math.min(batchSize, MAX_ROWS_PER_STATEMENT));
+        int threads = Math.max(1, writerThreads);
+
+        BitSet hostIds = loadHostIds();
+        Report report = new Report();
+        long rowsRead = 0;
+
+        ExecutorService writers = Executors.newFixedThreadPool(threads);
+        // Bounds the parsed-but-unwritten chunks so memory does not grow with the file size
+        Semaphore pending = new Semaphore(threads * 2);
+        List<Future<?>> chunks = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV is empty");
+            }
+            int[] columns = columnPositions(header);
+
+            List<ImportRow> chunk = new ArrayList<>(rowsPerChunk);
+            long line = 1;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                rowsRead++;
+                try {
+                    ImportRow row = parseRow(line, text, columns);
+                    if (!hostIds.get(row.hostId)) {
+                        throw new IllegalArgumentException("No host found with ID " + row.hostId);
+                    }
+                    chunk.add(row);
+                } catch (IllegalArgumentException e) {
+                    report.reject(line, e.getMessage());
+                }
+
+                if (chunk.size() == rowsPerChunk) {
+                    chunks.add(submit(writers, pending, chunk, report));
+                    chunk = new ArrayList<>(rowsPerChunk);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(submit(writers, pending, chunk, report));
+            }
+
+            for (Future<?> written : chunks) {
+                written.get();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading property import CSV", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Property import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error importing properties", e.getCause());
+        } finally {
+            writers.shutdownNow();
+            // Chunks already committed must reach the indexes even when a later one failed
+            if (report.imported.get() > 0) {
+                propertyIndexLoader.loadAll();
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        PropertyImportResultDTO result = new PropertyImportResultDTO();
+        result.setRowsRead(rowsRead);
+        result.setRowsImported(report.imported.get());
+        result.setRowsRejected(report.rejected.get());
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos > 0 ? report.imported.get() * 1_000_000_000L / elapsedNanos : 0);
+        List<PropertyImportRejectDTO> rejects = new ArrayList<>(report.rejects);
+        rejects.sort(Comparator.comparingLong(PropertyImportRejectDTO::getLine));
+        result.setRejects(rejects);
+
+        log.info("Imported {} of {} properties in {} ms ({} rows/s, {} rejected)",
+                result.getRowsImported(), rowsRead, result.getElapsedMillis(),
+                result.getRowsPerSecond(), result.getRowsRejected());
+        return result;
+    }
+
+    private Future<?> submit(ExecutorService writers, Semaphore pending, List<ImportRow> chunk, Report report)
+            throws InterruptedException {
+        pending.acquire();
+        return writers.submit(() -> {
+            try {
+                writeChunk(chunk, report);
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    /**
+     * One multi-row INSERT per chunk. If it fails (e.g. a host deleted after the snapshot), the chunk is
+     * rolled back and retried row by row so only the offending rows are rejected.
+     */
+    private void writeChunk(List<ImportRow> chunk, Report report) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insert(conn, chunk);
+                conn.commit();
+                report.imported.addAndGet(chunk.size());
+            } catch (SQLException e) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+                for (ImportRow row : chunk) {
+                    try {
+                        insert(conn, List.of(row));
+                        report.imported.incrementAndGet();
+                    } catch (SQLException rowError) {
+                        report.reject(row.line, rowError.getMessage());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error inserting imported properties", e);
+        }
+    }
+
+    private static void insert(Connection conn, List<ImportRow> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * 26).append(INSERT_PREFIX);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (ImportRow row : rows) {
+                stmt.setInt(p++, row.hostId);
+                stmt.setBigDecimal(p++, row.price);
+                stmt.setString(p++, row.roomType);
+                stmt.setInt(p++, row.personCapacity);
+                stmt.setObject(p++, row.bedrooms);
+                stmt.setBigDecimal(p++, row.centerDistance);
+                stmt.setBigDecimal(p++, row.metroDistance);
+                stmt.setString(p++, row.city);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Every user ID in one streamed query; a BitSet keeps it to a bit per ID
+     */
+    private BitSet loadHostIds() {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT ID FROM Users",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            BitSet ids = new BitSet();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.set(rs.getInt(1));
+                }
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading user IDs for property import", e);
+        }
+    }
+
+    /** Position of each required column in the header, in REQUIRED_COLUMNS order */
+    private static int[] columnPositions(String header) {
+        List<String> names = splitLine(header);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] columns = new int[REQUIRED_COLUMNS.length];
+        for (int i = 0; i < REQUIRED_COLUMNS.length; i++) {
+            Integer position = positions.get(REQUIRED_COLUMNS[i].toLowerCase(Locale.ROOT));
+            if (position == null) {
+                throw new IllegalArgumentException("CSV header is missing column " + REQUIRED_COLUMNS[i]);
+            }
+            columns[i] = position;
+        }
+        return columns;
+    }
+
+    private static ImportRow parseRow(long line, String text, int[] columns) {
+        List<String> fields = splitLine(text);
+        for (int column : columns) {
+            if (column >= fields.size()) {
+                throw new IllegalArgumentException("Expected at least " + (column + 1) + " columns, found " + fields.size());
+            }
+        }
+
+        ImportRow row = new ImportRow();
+        row.line = line;
+        row.price = decimal(fields.get(columns[0]), "realSum", false, MAX_PRICE);
+        if (row.price.signum() < 0) {
+            throw new IllegalArgumentException("realSum must not be negative");
+        }
+        row.roomType = text(fields.get(columns[1]), "room_type");
+        row.personCapacity = integer(fields.get(columns[2]), "person_capacity", 1);
+        String bedrooms = fields.get(columns[3]).trim();
+        row.bedrooms = bedrooms.isEmpty() ? null : integer(bedrooms, "bedrooms", 0);
+        row.centerDistance = decimal(fields.get(columns[4]), "dist", true, MAX_DISTANCE);
+        row.metroDistance = decimal(fields.get(columns[5]), "metro_dist", true, MAX_DISTANCE);
+        row.city = text(fields.get(columns[6]), "City");
+        row.hostId = integer(fields.get(columns[7]), "Host_ID", 1);
+        return row;
+    }
+
+    private static String text(String value, String column) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 100) {
+            throw new IllegalArgumentException(column + " must be 1 to 100 characters");
+        }
+        return trimmed;
+    }
+
+    private static int integer(String value, String column, int min) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min) {
+                throw new IllegalArgumentException(column + " must be at least " + min);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: '" + value + "'");
+        }
+    }
+
+    /** Decimal rounded to the two places of the DECIMAL columns; absolute value must be below max */
+    private static BigDecimal decimal(String value, String column, boolean nullable, BigDecimal max) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            if (nullable) {
+                return null;
+            }
+            throw new IllegalArgumentException(column + " is required");
+        }
+        try {
+            BigDecimal parsed = new BigDecimal(trimmed).setScale(2, RoundingMode.HALF_UP);
+            if (parsed.abs().compareTo(max) >= 0) {
+                throw new IllegalArgumentException(column + " is out of range: " + trimmed);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: '" + value + "'");
+        }
+    }
+
+    /** Splits one CSV line; fields may be double-quoted with "" as an escaped quote */
+    static List<String> splitLine(String line) {
+        List<String> fields = new ArrayList<>(12);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class ImportRow {
+        long line;
+        int hostId;
+        BigDecimal price;
+        String roomType;
+        int personCapacity;
+        Integer bedrooms;
+        BigDecimal centerDistance;
+        BigDecimal metroDistance;
+        String city;
+    }
+
+    /** Counters shared by the parsing thread and the writer threads */
+    private static final class Report {
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final ConcurrentLinkedQueue<PropertyImportRejectDTO> rejects = new ConcurrentLinkedQueue<>();
+
+        void reject(long line, String reason) {
+            if (rejected.incrementAndGet() <= MAX_REPORTED_REJECTS) {
+                rejects.add(new PropertyImportRejectDTO(line, reason));
+            }
+        }
+    }
+}
@@ -1,29 +1,181 @@
 package com.airbnb.backend.service;
 
 import com.airbnb.backend.repository.PropertyRatingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class PropertyRatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyRatingService.class);
     
     @Autowired
     private PropertyRatingRepository propertyRatingRepository;
+
+    @Value("${property-ratings.reconcile-batch-size:1000}")
+    private int reconcileBatchSize;
+
+    @Value("${property-ratings.reconcile-grace-seconds:60}")
+    private long reconcileGraceSeconds;
+
+    @Value("${property-ratings.recalculate-threads:4}")
+    private int recalculateThreads;
+
+    @Value("${property-ratings.recalculate-ranges:16}")
+    private int recalculateRanges;
+
+    private final AtomicInteger rangesCompleted = new AtomicInteger();
+    private volatile int rangesTotal;
+    private volatile Date recalculationStartedAt;
+    private volatile boolean recalculationRunning;
     
     /**
-     * Update average ratings for a property when a new review is added
+     * Recalculate average ratings for a property from all of its reviews
      */
     public Map<String, Object> updatePropertyRatingAfterNewReview(Integer propertyId) {
         return propertyRatingRepository.calculatePropertyRating(propertyId);
     }
+
+    /**
+     * Update average ratings for a property when a new review is added, in constant time
+     */
+    public Map<String, Object> updatePropertyRatingAfterNewReview(Integer propertyId, Integer cleanlinessRating, Integer satisfactionRating) {
+        return propertyRatingRepository.applyReview(propertyId, cleanlinessRating, satisfactionRating);
+    }
+
+    /**
+     * Periodically repair running sums that drifted from the reviews collection
+     */
+    @Scheduled(initialDelayString = "${property-ratings.reconcile-interval-ms:3600000}",
+               fixedDelayString = "${property-ratings.reconcile-interval-ms:3600000}")
+    public void scheduledReconciliation() {
+        Map<String, Object> result = reconcileRatings();
+        if (Boolean.TRUE.equals(result.get("success"))) {
+            log.info("Property rating reconciliation: {} checked, {} corrected, {} left for the next run ({} ms)",
+                    result.get("properties_checked"), result.get("properties_corrected"),
+                    result.get("properties_skipped"), result.get("elapsed_ms"));
+        } else {
+            log.warn("Could not reconcile property ratings: {}", result.get("error"));
+        }
+    }
+
+    /**
+     * Compare stored running sums with the reviews collection and fix any drift
+     */
+    public synchronized Map<String, Object> reconcileRatings() {
+        return propertyRatingRepository.reconcilePropertyRatings(Math.max(1, reconcileBatchSize), Math.max(0, reconcileGraceSeconds));
+    }
     
     /**
-     * Batch update all property ratings
+     * Batch update all property ratings. The reviewed property_id range is cut into
+     * {@code property-ratings.recalculate-ranges} ranges, each recalculated by one $group + $merge
+     * pipeline inside MongoDB; at most {@code property-ratings.recalculate-threads} run at a time.
      */
-    public Map<String, Object> recalculateAllRatings() {
-        return propertyRatingRepository.recalculateAllPropertyRatings();
+    public synchronized Map<String, Object> recalculateAllRatings() {
+        long start = System.nanoTime();
+        try {
+            int[] idRange = propertyRatingRepository.reviewedPropertyIdRange();
+            List<int[]> ranges = idRange == null
+                ? List.of()
+                : ranges(idRange[0], idRange[1], Math.max(1, recalculateRanges));
+
+            recalculationStartedAt = new Date();
+            rangesTotal = ranges.size();
+            rangesCompleted.set(0);
+            recalculationRunning = true;
+
+            List<Map<String, Object>> rangeResults = new ArrayList<>();
+            ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(recalculateThreads, ranges.size())));
+            try {
+                List<Future<Map<String, Object>>> futures = new ArrayList<>();
+                for (int[] range : ranges) {
+                    futures.add(workers.submit(() -> {
+                        Map<String, Object> result = propertyRatingRepository.mergePropertyRatings(range[0], range[1]);
+                        rangesCompleted.incrementAndGet();
+                        return result;
+                    }));
+                }
+                for (Future<Map<String, Object>> future : futures) {
+                    rangeResults.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Rating recalculation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error recalculating ratings", e.getCause());
+            } finally {
+                workers.shutdownNow();
+            }
+
+            long processed = 0;
+            int failed = 0;
+            for (Map<String, Object> result : rangeResults) {
+                if (Boolean.TRUE.equals(result.get("success"))) {
+                    processed += ((Number) result.get("properties")).longValue();
+                } else {
+                    failed++;
+                }
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", failed == 0);
+            response.put("total_properties", processed);
+            response.put("processed_successfully", processed);
+            response.put("ranges", ranges.size());
+            response.put("ranges_failed", failed);
+            response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+            response.put("range_results", rangeResults);
+            response.put("message", failed == 0
+                ? "Batch rating recalculation completed"
+                : "Batch rating recalculation completed with " + failed + " failed ranges");
+            log.info("Recalculated ratings of {} properties in {} ranges ({} failed) in {} ms",
+                    processed, ranges.size(), failed, response.get("elapsed_ms"));
+            return response;
+        } catch (Exception e) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", false);
+            response.put("error", "Batch processing error: " + e.getMessage());
+            return response;
+        } finally {
+            recalculationRunning = false;
+        }
+    }
+
+    /**
+     * Progress of the running (or last) recalculate-all
+     */
+    public Map<String, Object> getRecalculationProgress() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("running", recalculationRunning);
+        response.put("started_at", recalculationStartedAt);
+        response.put("ranges_total", rangesTotal);
+        response.put("ranges_completed", rangesCompleted.get());
+        return response;
+    }
+
+    /** Splits [min, max] into at most {@code count} contiguous inclusive property_id ranges */
+    static List<int[]> ranges(int min, int max, int count) {
+        List<int[]> ranges = new ArrayList<>();
+        long width = Math.max(1, ((long) max - min + count) / count);
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new int[] {(int) from, (int) Math.min(max, from + width - 1)});
+        }
+        return ranges;
     }
     
     /**
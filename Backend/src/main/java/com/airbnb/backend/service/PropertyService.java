@@ -1,7 +1,20 @@
 package com.airbnb.backend.service;
 
+import com.airbnb.backend.availability.AvailabilityCalendar;
+import com.airbnb.backend.dto.AvailablePropertyDTO;
+import com.airbnb.backend.dto.PriceStatsDTO;
+import com.airbnb.backend.dto.PropertyBatchDTO;
 import com.airbnb.backend.dto.PropertyDTO;
+import com.airbnb.backend.dto.PropertyFacetResultDTO;
+import com.airbnb.backend.dto.PropertyPageDTO;
+import com.airbnb.backend.dto.PropertySearchCriteria;
 import com.airbnb.backend.dto.PropertyUpdateDTO;
+import com.airbnb.backend.index.PriceDistributionIndex;
+import com.airbnb.backend.index.PropertyFacetIndex;
+import com.airbnb.backend.index.PropertyIndexes;
+import com.airbnb.backend.index.PropertySearchIndex;
+import com.airbnb.backend.index.SimilarPropertyIndex;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -9,21 +22,58 @@ import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class PropertyService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int MAX_FACET_IDS = 10000;
+    public static final int MAX_SIMILAR = 100;
+
     @Autowired
     private DataSource dataSource;
 
-    public void addProperty(Integer hostId, BigDecimal price, String roomType, Integer personCapacity,
+    @Autowired
+    private Cache<Integer, PropertyDTO> propertyCache;
+
+    @Autowired
+    private PropertySearchIndex propertySearchIndex;
+
+    @Autowired
+    private PropertyFacetIndex propertyFacetIndex;
+
+    @Autowired
+    private SimilarPropertyIndex similarPropertyIndex;
+
+    @Autowired
+    private PriceDistributionIndex priceDistributionIndex;
+
+    @Autowired
+    private PropertyIndexes propertyIndexes;
+
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+
+    public int addProperty(Integer hostId, BigDecimal price, String roomType, Integer personCapacity,
                             Integer bedrooms, BigDecimal centerDistance, BigDecimal metroDistance, String city) {
+        int propertyId;
+
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall("{CALL AddProperty(?, ?, ?, ?, ?, ?, ?, ?)}")) {
 
@@ -36,13 +86,28 @@ public class PropertyService {
             stmt.setObject(7, metroDistance);
             stmt.setString(8, city);
 
-            stmt.execute();
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new RuntimeException("AddProperty did not return the new property ID");
+                }
+                propertyId = rs.getInt("ID");
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure AddProperty", e);
         }
+
+        refreshIndexes(propertyId);
+        return propertyId;
     }
 
+    /**
+     * Cached lookup; concurrent misses for the same ID share a single GetProperty call
+     */
     public PropertyDTO getPropertyById(int propertyId) {
+        return propertyCache.get(propertyId, this::loadProperty);
+    }
+
+    private PropertyDTO loadProperty(int propertyId) {
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall("{CALL GetProperty(?)}")) {
 
@@ -50,17 +115,7 @@ public class PropertyService {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    PropertyDTO property = new PropertyDTO();
-                    property.setId(rs.getInt("ID"));
-                    property.setHostId(rs.getInt("Host_ID"));
-                    property.setPrice(rs.getBigDecimal("Price"));
-                    property.setRoomType(rs.getString("Room_type"));
-                    property.setPersonCapacity(rs.getInt("Person_capacity"));
-                    property.setBedrooms(rs.getObject("Bedrooms", Integer.class));
-                    property.setCenterDistance(rs.getObject("Center_distance", BigDecimal.class));
-                    property.setMetroDistance(rs.getObject("Metro_distance", BigDecimal.class));
-                    property.setCity(rs.getString("City"));
-                    return property;
+                    return mapProperty(rs);
                 } else {
                     throw new RuntimeException("Property not found");
                 }
@@ -71,6 +126,10 @@ public class PropertyService {
     }
 
     public List<PropertyDTO> getFilteredProperties(String city, int price, int capacity, float cityDistance, float metroDistance) {
+        if (propertySearchIndex.isLoaded()) {
+            return propertySearchIndex.search(city, price, capacity, cityDistance, metroDistance);
+        }
+
         List<PropertyDTO> properties = new ArrayList<>();
 
         try (Connection conn = dataSource.getConnection();
@@ -84,17 +143,7 @@ public class PropertyService {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    PropertyDTO property = new PropertyDTO();
-                    property.setId(rs.getInt("ID"));
-                    property.setHostId(rs.getInt("Host_ID"));
-                    property.setPrice(rs.getBigDecimal("Price"));
-                    property.setRoomType(rs.getString("Room_type"));
-                    property.setPersonCapacity(rs.getInt("Person_capacity"));
-                    property.setBedrooms(rs.getObject("Bedrooms", Integer.class));
-                    property.setCenterDistance(rs.getObject("Center_distance", BigDecimal.class));
-                    property.setMetroDistance(rs.getObject("Metro_distance", BigDecimal.class));
-                    property.setCity(rs.getString("City"));
-                    properties.add(property);
+                    properties.add(mapProperty(rs));
                 }
             }
         } catch (SQLException e) {
@@ -105,35 +154,331 @@ public class PropertyService {
     }
 
 
-    public List<PropertyDTO> getAllProperties() {
+    /**
+     * Top-k properties in a city ordered by distance to the center (or metro when byMetro is set),
+     * limited by optional price and capacity bounds. Falls back to an index-ordered SQL search
+     * while the in-memory index is loading.
+     */
+    public List<PropertyDTO> getNearestProperties(String city, boolean byMetro, int k, Integer maxPrice, Integer minCapacity) {
+        int limit = Math.max(1, Math.min(k, MAX_PAGE_SIZE));
+        if (propertySearchIndex.isLoaded()) {
+            return propertySearchIndex.nearest(city, byMetro, limit, maxPrice, minCapacity);
+        }
+
+        PropertySearchCriteria criteria = new PropertySearchCriteria();
+        criteria.setCity(city);
+        criteria.setMaxPrice(maxPrice != null ? BigDecimal.valueOf(maxPrice) : null);
+        criteria.setMinCapacity(minCapacity);
+        // A lower bound of 0 also keeps NULL distances out, which ORDER BY ASC would otherwise put first
+        if (byMetro) {
+            criteria.setMinMetroDistance(BigDecimal.ZERO);
+            criteria.setSortBy("metro_distance");
+        } else {
+            criteria.setMinCenterDistance(BigDecimal.ZERO);
+            criteria.setSortBy("center_distance");
+        }
+        criteria.setLimit(limit);
+        return searchProperties(criteria);
+    }
+
+    /**
+     * Properties in the city with no booking overlapping [from, to), cheapest first, each with the stay
+     * price AddBooking would charge (nights x nightly price). Answered from the property index and the
+     * availability calendar when both are loaded, otherwise by one anti-join query.
+     */
+    public List<AvailablePropertyDTO> getAvailableProperties(String city, LocalDate from, LocalDate to,
+                                                             Integer maxPrice, Integer minCapacity, int limit) {
+        int nights = (int) ChronoUnit.DAYS.between(from, to);
+        if (nights <= 0) {
+            throw new IllegalArgumentException("to must be after from");
+        }
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<PropertyDTO> properties;
+        if (propertySearchIndex.isLoaded() && availabilityCalendar.isLoaded()) {
+            properties = propertySearchIndex.search(city, maxPrice, minCapacity,
+                    id -> availabilityCalendar.isAvailable(id, from, to), cappedLimit);
+        } else {
+            properties = queryAvailableProperties(city, from, to, maxPrice, minCapacity, cappedLimit);
+        }
+
+        List<AvailablePropertyDTO> available = new ArrayList<>(properties.size());
+        BigDecimal stayNights = BigDecimal.valueOf(nights);
+        for (PropertyDTO property : properties) {
+            available.add(new AvailablePropertyDTO(property, nights, property.getPrice().multiply(stayNights)));
+        }
+        return available;
+    }
+
+    private List<PropertyDTO> queryAvailableProperties(String city, LocalDate from, LocalDate to,
+                                                       Integer maxPrice, Integer minCapacity, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT p.ID, p.Host_ID, p.Price, p.Room_type, p.Person_capacity, p.Bedrooms, " +
+                "p.Center_distance, p.Metro_distance, p.City FROM Properties p WHERE p.City = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(city);
+        appendRange(sql, params, "p.Price", null, maxPrice);
+        appendRange(sql, params, "p.Person_capacity", minCapacity, null);
+        // Same overlap rule as the prevent_overlapping_booking trigger
+        sql.append(" AND NOT EXISTS (SELECT 1 FROM Bookings b WHERE b.Property_ID = p.ID" +
+                   " AND b.Booking_start < ? AND b.Booking_end > ?)" +
+                   " ORDER BY p.Price, p.ID LIMIT ?");
+        params.add(Date.valueOf(to));
+        params.add(Date.valueOf(from));
+        params.add(limit);
+
+        List<PropertyDTO> properties = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    properties.add(mapProperty(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching available properties", e);
+        }
+        return properties;
+    }
+
+    /**
+     * Properties in the same city with the most similar price, capacity, bedrooms, room type and distances
+     */
+    public List<PropertyDTO> getSimilarProperties(int propertyId, int k) {
+        if (!similarPropertyIndex.isLoaded()) {
+            throw new IllegalStateException("Similar property index is still loading");
+        }
+        List<PropertyDTO> similar = similarPropertyIndex.similar(propertyId, Math.max(1, Math.min(k, MAX_SIMILAR)));
+        if (similar == null) {
+            throw new RuntimeException("Property not found");
+        }
+        return similar;
+    }
+
+    /**
+     * p10/p50/p90 nightly price per (city, room type), read from the in-memory quantile sketches
+     */
+    public List<PriceStatsDTO> getPriceStats(String city, String roomType) {
+        if (!priceDistributionIndex.isLoaded()) {
+            throw new IllegalStateException("Price distribution index is still loading");
+        }
+        return priceDistributionIndex.priceStats(city, roomType);
+    }
+
+    /**
+     * Matching property IDs plus per-value counts for city, room type, bedrooms and price range,
+     * answered from the in-memory bitmap indexes
+     */
+    public PropertyFacetResultDTO getFacets(Map<String, List<String>> filters, int limit) {
+        if (!propertyFacetIndex.isLoaded()) {
+            throw new IllegalStateException("Property facet index is still loading");
+        }
+        return propertyFacetIndex.search(filters, Math.max(0, Math.min(limit, MAX_FACET_IDS)));
+    }
+
+    /**
+     * Range search where every predicate is optional. The WHERE clause only contains the filters that
+     * were supplied, so MySQL can pick the matching composite index (City + Room_type/Bedrooms/Price
+     * or City + distance) instead of evaluating placeholder bounds.
+     */
+    public List<PropertyDTO> searchProperties(PropertySearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT ID, Host_ID, Price, Room_type, Person_capacity, Bedrooms, " +
+                "Center_distance, Metro_distance, City FROM Properties WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        appendEquals(sql, params, "City", criteria.getCity());
+        appendEquals(sql, params, "Room_type", criteria.getRoomType());
+        appendRange(sql, params, "Price", criteria.getMinPrice(), criteria.getMaxPrice());
+        appendRange(sql, params, "Person_capacity", criteria.getMinCapacity(), criteria.getMaxCapacity());
+        appendRange(sql, params, "Bedrooms", criteria.getMinBedrooms(), criteria.getMaxBedrooms());
+        appendRange(sql, params, "Center_distance", criteria.getMinCenterDistance(), criteria.getMaxCenterDistance());
+        appendRange(sql, params, "Metro_distance", criteria.getMinMetroDistance(), criteria.getMaxMetroDistance());
+
+        String direction = "desc".equalsIgnoreCase(criteria.getSortOrder()) ? "DESC" : "ASC";
+        sql.append(" ORDER BY ").append(validateSortColumn(criteria.getSortBy())).append(' ').append(direction)
+           .append(", ID ").append(direction)
+           .append(" LIMIT ?");
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : 50;
+        params.add(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+
         List<PropertyDTO> properties = new ArrayList<>();
 
         try (Connection conn = dataSource.getConnection();
-             CallableStatement stmt = conn.prepareCall("{CALL GetAllProperties()}")) {
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    PropertyDTO property = new PropertyDTO();
-                    property.setId(rs.getInt("ID"));
-                    property.setHostId(rs.getInt("Host_ID"));
-                    property.setPrice(rs.getBigDecimal("Price"));
-                    property.setRoomType(rs.getString("Room_type"));
-                    property.setPersonCapacity(rs.getInt("Person_capacity"));
-                    property.setBedrooms(rs.getObject("Bedrooms") != null ? rs.getInt("Bedrooms") : null);
-                    property.setCenterDistance(rs.getBigDecimal("Center_distance"));
-                    property.setMetroDistance(rs.getBigDecimal("Metro_distance"));
-                    property.setCity(rs.getString("City"));
-                    properties.add(property);
+                    properties.add(mapProperty(rs));
                 }
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching properties", e);
+        }
+
+        return properties;
+    }
 
+    private void appendEquals(StringBuilder sql, List<Object> params, String column, String value) {
+        if (value != null && !value.isBlank()) {
+            sql.append(" AND ").append(column).append(" = ?");
+            params.add(value);
+        }
+    }
+
+    private void appendRange(StringBuilder sql, List<Object> params, String column, Object min, Object max) {
+        if (min != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(min);
+        }
+        if (max != null) {
+            sql.append(" AND ").append(column).append(" <= ?");
+            params.add(max);
+        }
+    }
+
+    /**
+     * Map the requested sort option to a column to prevent injection
+     */
+    private String validateSortColumn(String sortBy) {
+        if (sortBy == null) {
+            return "Price";
+        }
+        switch (sortBy.toLowerCase()) {
+            case "center_distance":
+                return "Center_distance";
+            case "metro_distance":
+                return "Metro_distance";
+            default:
+                return "Price";
+        }
+    }
+
+    /**
+     * Fetches a batch of properties in request order. Cached entries are served from memory and all
+     * remaining IDs are resolved with a single GetPropertiesByIds call.
+     */
+    public PropertyBatchDTO getPropertiesByIds(List<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                uniqueIds.add(id);
+            }
+        }
+        if (uniqueIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " property IDs can be requested at once");
+        }
+
+        Map<Integer, PropertyDTO> found = propertyCache.getAll(uniqueIds, this::loadProperties);
+
+        List<PropertyDTO> properties = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            PropertyDTO property = found.get(id);
+            if (property != null) {
+                properties.add(property);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        PropertyBatchDTO batch = new PropertyBatchDTO();
+        batch.setProperties(properties);
+        batch.setMissingIds(missingIds);
+        return batch;
+    }
+
+    private Map<Integer, PropertyDTO> loadProperties(Set<? extends Integer> ids) {
+        Map<Integer, PropertyDTO> properties = new HashMap<>();
+        String idArray = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+
+        try (Connection conn = dataSource.getConnection();
+             CallableStatement stmt = conn.prepareCall("{CALL GetPropertiesByIds(?)}")) {
+
+            stmt.setString(1, idArray);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    PropertyDTO property = mapProperty(rs);
+                    properties.put(property.getId(), property);
+                }
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("Error calling stored procedure GetAllProperties", e);
+            throw new RuntimeException("Error calling stored procedure GetPropertiesByIds", e);
         }
 
         return properties;
     }
 
+    /**
+     * Keyset-paginated listing: returns at most {@code limit} properties with ID greater than {@code afterId}.
+     * nextAfterId is null once the last page has been reached.
+     */
+    public PropertyPageDTO getPropertiesPage(int afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<PropertyDTO> properties = new ArrayList<>(pageSize + 1);
+
+        try (Connection conn = dataSource.getConnection();
+             CallableStatement stmt = conn.prepareCall("{CALL GetPropertiesPage(?, ?)}")) {
+
+            stmt.setInt(1, afterId);
+            // Fetch one extra row so we know whether another page exists
+            stmt.setInt(2, pageSize + 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    properties.add(mapProperty(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error calling stored procedure GetPropertiesPage", e);
+        }
+
+        boolean hasMore = properties.size() > pageSize;
+        if (hasMore) {
+            properties.remove(pageSize);
+        }
+
+        PropertyPageDTO page = new PropertyPageDTO();
+        page.setProperties(properties);
+        page.setLimit(pageSize);
+        page.setNextAfterId(hasMore ? properties.get(pageSize - 1).getId() : null);
+        return page;
+    }
+
+    /**
+     * Streams every property to the consumer as rows are read from a forward-only cursor,
+     * so memory use does not depend on the size of the Properties table.
+     */
+    public void streamAllProperties(Consumer<PropertyDTO> consumer) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT ID, Host_ID, Price, Room_type, Person_capacity, Bedrooms, " +
+                     "Center_distance, Metro_distance, City FROM Properties ORDER BY ID",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Integer.MIN_VALUE makes Connector/J stream rows one at a time instead of buffering the result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapProperty(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming properties", e);
+        }
+    }
+
 
     public void updateProperty(int propertyId, PropertyUpdateDTO property) {
         try (Connection conn = dataSource.getConnection();
@@ -152,6 +497,9 @@ public class PropertyService {
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure UpdateProperty", e);
         }
+
+        propertyCache.invalidate(propertyId);
+        refreshIndexes(propertyId);
     }
 
 
@@ -164,6 +512,10 @@ public class PropertyService {
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure DeleteProperty", e);
         }
+
+        propertyCache.invalidate(propertyId);
+        propertyIndexes.remove(propertyId);
+        availabilityCalendar.releaseProperty(propertyId);
     }
 
     public List<Map<String, Object>> getPropertiesByHostId(int hostId) {
@@ -196,7 +548,24 @@ public class PropertyService {
         return properties;
     }
 
+    /**
+     * Re-reads a property after a write so the in-memory indexes hold exactly what MySQL stored
+     */
+    private void refreshIndexes(int propertyId) {
+        propertyIndexes.upsert(loadProperty(propertyId));
+    }
 
-
-
+    private PropertyDTO mapProperty(ResultSet rs) throws SQLException {
+        PropertyDTO property = new PropertyDTO();
+        property.setId(rs.getInt("ID"));
+        property.setHostId(rs.getInt("Host_ID"));
+        property.setPrice(rs.getBigDecimal("Price"));
+        property.setRoomType(rs.getString("Room_type"));
+        property.setPersonCapacity(rs.getInt("Person_capacity"));
+        property.setBedrooms(rs.getObject("Bedrooms", Integer.class));
+        property.setCenterDistance(rs.getObject("Center_distance", BigDecimal.class));
+        property.setMetroDistance(rs.getObject("Metro_distance", BigDecimal.class));
+        property.setCity(rs.getString("City"));
+        return property;
+    }
 }
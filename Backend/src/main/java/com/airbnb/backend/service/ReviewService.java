@@ -3,12 +3,15 @@ package com.airbnb.backend.service;
 import com.airbnb.backend.repository.ReviewRepository;
 import com.airbnb.backend.repository.BookingRepository;
 import com.airbnb.backend.service.PropertyRatingService;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.List;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Service
 public class ReviewService {
@@ -21,6 +24,12 @@ public class ReviewService {
     
     @Autowired
     private BookingRepository bookingRepository;
+
+    @Autowired
+    private Cache<Integer, Map<String, Object>> guestInfoCache;
+
+    @Autowired
+    private ReviewSnapshotService reviewSnapshotService;
     
     /**
      * Get reviews for a specific property with pagination and sorting
@@ -28,9 +37,15 @@ public class ReviewService {
     public Map<String, Object> getPropertyReviews(Integer propertyId, Integer limit, Integer skip, String sortBy, String sortOrder) {
         return reviewRepository.getPropertyReviews(propertyId, limit, skip, sortBy, sortOrder);
     }
+
+    public Map<String, Object> getPropertyReviews(Integer propertyId, Integer limit, Integer skip, String pageToken,
+                                                  String sortBy, String sortOrder) {
+        return reviewRepository.getPropertyReviews(propertyId, limit, skip, pageToken, sortBy, sortOrder);
+    }
     
     /**
-     * Add a new review with comprehensive validation using MySQL stored procedures
+     * Add a new review with comprehensive validation using MySQL stored procedures. A failed response
+     * carries {@code retryable=true} when a database could not be reached, as opposed to a rejected review.
      */
     public Map<String, Object> addReview(Integer propertyId, Integer bookingId, Integer cleanlinessRating, Integer satisfactionRating, String comment) {
         try {
@@ -45,7 +60,8 @@ public class ReviewService {
             }
             
             // Step 2: Check booking exists and matches property
-            boolean bookingValid = validateBookingExists(bookingId, propertyId);
+            // Called on the repository so that a database error is not mistaken for a missing booking
+            boolean bookingValid = bookingRepository.validateBookingExists(bookingId, propertyId);
             if (!bookingValid) {
                 Map<String, Object> response = new LinkedHashMap<>();
                 response.put("success", false);
@@ -56,7 +72,7 @@ public class ReviewService {
             }
             
             // Step 3: Enforce business rule - booking must be completed
-            boolean bookingCompleted = isBookingCompleted(bookingId);
+            boolean bookingCompleted = bookingRepository.isBookingCompleted(bookingId);
             if (!bookingCompleted) {
                 Map<String, Object> response = new LinkedHashMap<>();
                 response.put("success", false);
@@ -67,8 +83,9 @@ public class ReviewService {
                 return response;
             }
             
-            // Step 4: Create review in MongoDB
-            return reviewRepository.addReview(propertyId, bookingId, cleanlinessRating, satisfactionRating, comment);
+            // Step 4: Create review in MongoDB with the guest and property embedded
+            Map<String, Object> snapshot = reviewSnapshotService.snapshotFor(bookingId);
+            return reviewRepository.addReview(propertyId, bookingId, cleanlinessRating, satisfactionRating, comment, snapshot);
             
         } catch (Exception e) {
             Map<String, Object> response = new LinkedHashMap<>();
@@ -76,6 +93,7 @@ public class ReviewService {
             response.put("property_id", propertyId);
             response.put("booking_id", bookingId);
             response.put("error", "Cross-database validation error: " + e.getMessage());
+            response.put("retryable", true);
             return response;
         }
     }
@@ -87,7 +105,8 @@ public class ReviewService {
         Map<String, Object> reviewResult = addReview(propertyId, bookingId, cleanlinessRating, satisfactionRating, comment);
         
         if (reviewResult != null && Boolean.TRUE.equals(reviewResult.get("success"))) {
-            Map<String, Object> ratingResult = propertyRatingService.updatePropertyRatingAfterNewReview(propertyId);
+            Map<String, Object> ratingResult = propertyRatingService.updatePropertyRatingAfterNewReview(
+                    propertyId, cleanlinessRating, satisfactionRating);
             
             // Add rating update info to the review result
             reviewResult.put("rating_updated", Boolean.TRUE.equals(ratingResult.get("success")));
@@ -104,8 +123,9 @@ public class ReviewService {
     /**
      * Get all reviews with advanced filtering options
      */
-    public Map<String, Object> getAllReviews(Integer limit, Integer skip, String sortBy, String sortOrder, Integer minRating, Integer maxRating) {
-        return reviewRepository.getAllReviews(limit, skip, sortBy, sortOrder, minRating, maxRating);
+    public Map<String, Object> getAllReviews(Integer limit, Integer skip, String pageToken, String sortBy, String sortOrder,
+                                             Integer minRating, Integer maxRating) {
+        return reviewRepository.getAllReviews(limit, skip, pageToken, sortBy, sortOrder, minRating, maxRating);
     }
     
     /**
@@ -139,9 +159,18 @@ public class ReviewService {
     }
     
     /**
-     * Get reviews with enriched guest information from MySQL using stored procedures
+     * Get reviews with guest information, without the guest's email and booking price
      */
     public Map<String, Object> getReviewsWithGuestInfo(Integer propertyId) {
+        return getReviewsWithGuestInfo(propertyId, false);
+    }
+
+    /**
+     * Reviews with the guest's name and the property's city and room type. Reviews carrying a snapshot are
+     * served from it alone; only reviews without one, or every review when {@code includeBookingDetails}
+     * asks for the guest's email and booking price, are looked up through GetGuestInfoFromBookings.
+     */
+    public Map<String, Object> getReviewsWithGuestInfo(Integer propertyId, boolean includeBookingDetails) {
         Map<String, Object> reviewsResult = reviewRepository.getPropertyReviews(propertyId, 10, 0, "created_at", "desc");
         
         if (!(Boolean) reviewsResult.get("success")) {
@@ -153,26 +182,48 @@ public class ReviewService {
         
         int enrichedCount = 0;
         
-        // Enrich reviews with guest information from MySQL via booking_id using stored procedures
+        // The booking IDs that need MySQL are resolved together: cached entries from memory, the others
+        // with one GetGuestInfoFromBookings call
+        Set<Integer> bookingIds = new LinkedHashSet<>();
+        for (Map<String, Object> review : reviews) {
+            Object bookingId = review.get("booking_id");
+            if (bookingId instanceof Integer && (includeBookingDetails || !review.containsKey("guest_id"))) {
+                bookingIds.add((Integer) bookingId);
+            }
+        }
+        
+        Map<Integer, Map<String, Object>> guestInfo;
+        try {
+            guestInfo = bookingIds.isEmpty()
+                ? Map.of()
+                : guestInfoCache.getAll(bookingIds, bookingRepository::getGuestInfoFromBookings);
+        } catch (Exception e) {
+            guestInfo = null;
+        }
+        
         for (Map<String, Object> review : reviews) {
-            Integer bookingId = (Integer) review.get("booking_id");
-            if (bookingId != null) {
-                try {
-                    Map<String, Object> bookingInfo = bookingRepository.getGuestInfoFromBooking(bookingId);
-                    
-                    if (bookingInfo != null) {
-                        review.put("guest_name", bookingInfo.get("guest_name"));
+            Object bookingId = review.get("booking_id");
+            if (review.containsKey("guest_id") && !includeBookingDetails) {
+                enrichedCount++;
+            } else if (!(bookingId instanceof Integer)) {
+                review.put("guest_name", "No booking_id");
+            } else if (guestInfo == null) {
+                review.put("guest_name", "MySQL error");
+            } else {
+                Map<String, Object> bookingInfo = guestInfo.get(bookingId);
+                if (bookingInfo != null) {
+                    review.put("guest_id", bookingInfo.get("guest_id"));
+                    review.put("guest_name", bookingInfo.get("guest_name"));
+                    review.put("property_city", bookingInfo.get("property_city"));
+                    review.put("room_type", bookingInfo.get("room_type"));
+                    if (includeBookingDetails) {
                         review.put("guest_email", bookingInfo.get("guest_email"));
                         review.put("booking_price", bookingInfo.get("booking_price"));
-                        enrichedCount++;
-                    } else {
-                        review.put("guest_name", "Booking not found");
                     }
-                } catch (Exception e) {
-                    review.put("guest_name", "MySQL error");
+                    enrichedCount++;
+                } else {
+                    review.put("guest_name", "Booking not found");
                 }
-            } else {
-                review.put("guest_name", "No booking_id");
             }
         }
         
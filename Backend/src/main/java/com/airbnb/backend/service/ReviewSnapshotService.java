@@ -0,0 +1,244 @@
+package com.airbnb.backend.service;
+
+import com.airbnb.backend.repository.BookingRepository;
+import com.airbnb.backend.repository.ReviewRepository;
+import com.airbnb.backend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps guest and property snapshots embedded in review documents, so reading enriched reviews is a
+ * single Mongo query. Snapshots are taken from the booking when a review is written; reviews written
+ * before that are filled in by {@link #backfill()}, and guest renames are pushed into existing reviews
+ * by a background propagation job. Propagations are in memory only, and a review can take its snapshot
+ * just before a rename, so {@link #resyncGuestNames()} periodically repairs names against Users.
+ */
+@Service
+public class ReviewSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewSnapshotService.class);
+
+    private static final long PROPAGATION_DRAIN_SECONDS = 5;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${review-snapshot.backfill-threads:4}")
+    private int backfillThreads;
+
+    @Value("${review-snapshot.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    @Value("${review-snapshot.resync-batch-size:1000}")
+    private int resyncBatchSize;
+
+    // One propagation at a time keeps successive renames of a guest applied in order
+    private final ExecutorService propagation = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "review-snapshot-propagation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Guest and property snapshot for a booking, or null when it cannot be read; the review is then
+     * stored without one and completed by the backfill
+     */
+    public Map<String, Object> snapshotFor(Integer bookingId) {
+        try {
+            return bookingRepository.getGuestInfoFromBookings(List.of(bookingId)).get(bookingId);
+        } catch (RuntimeException e) {
+            log.warn("Could not read the guest snapshot of booking {}: {}", bookingId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Embeds snapshots into every review that has none. Reviews are read in _id order in batches of
+     * {@code review-snapshot.backfill-batch-size}; each batch costs one GetGuestInfoFromBookings call and
+     * one bulk write, and up to {@code review-snapshot.backfill-threads} batches run in parallel while the
+     * next ones are read.
+     */
+    public synchronized Map<String, Object> backfill() {
+        long start = System.nanoTime();
+        int threads = Math.max(1, backfillThreads);
+        int batchSize = Math.max(1, backfillBatchSize);
+        AtomicLong updated = new AtomicLong();
+        AtomicLong missingBookings = new AtomicLong();
+        AtomicInteger failedBatches = new AtomicInteger();
+        int batches = 0;
+        long scanned = 0;
+
+        // A full queue makes the reading thread write the batch itself, bounding memory to a few batches
+        ThreadPoolExecutor writers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            ObjectId afterId = null;
+            List<Document> batch;
+            do {
+                batch = reviewRepository.findReviewsWithoutSnapshot(afterId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getObjectId("_id");
+                batches++;
+                scanned += batch.size();
+                List<Document> reviews = batch;
+                writers.execute(() -> {
+                    try {
+                        int[] result = backfillBatch(reviews);
+                        updated.addAndGet(result[0]);
+                        missingBookings.addAndGet(result[1]);
+                    } catch (RuntimeException e) {
+                        failedBatches.incrementAndGet();
+                        log.warn("Review snapshot batch failed: {}", e.getMessage());
+                    }
+                });
+            } while (batch.size() == batchSize);
+
+            writers.shutdown();
+            writers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Review snapshot backfill interrupted", e);
+        } finally {
+            writers.shutdownNow();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", failedBatches.get() == 0);
+        response.put("reviews_scanned", scanned);
+        response.put("reviews_updated", updated.get());
+        response.put("bookings_not_found", missingBookings.get());
+        response.put("batches", batches);
+        response.put("failed_batches", failedBatches.get());
+        response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+        log.info("Review snapshot backfill: {} scanned, {} updated, {} without booking, {} failed batches in {} ms",
+                scanned, updated.get(), missingBookings.get(), failedBatches.get(), response.get("elapsed_ms"));
+        return response;
+    }
+
+    @Scheduled(initialDelayString = "${review-snapshot.resync-interval-ms:3600000}",
+               fixedDelayString = "${review-snapshot.resync-interval-ms:3600000}")
+    public void scheduledResync() {
+        Map<String, Object> result = resyncGuestNames();
+        if (!Boolean.TRUE.equals(result.get("success"))) {
+            log.warn("Could not re-sync guest names in reviews: {}", result.get("error"));
+        }
+    }
+
+    /**
+     * Sets the embedded guest name of every review to the guest's current name in Users. Guest IDs are
+     * streamed from the reviews collection in batches of {@code review-snapshot.resync-batch-size}; each
+     * batch costs one GetUserNamesByIds call and one bulk write that only touches reviews whose name differs.
+     * Guests no longer in Users keep the name they had.
+     */
+    public synchronized Map<String, Object> resyncGuestNames() {
+        long start = System.nanoTime();
+        AtomicLong guests = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            reviewRepository.forEachGuestIdBatch(Math.max(1, resyncBatchSize), guestIds -> {
+                guests.addAndGet(guestIds.size());
+                updated.addAndGet(reviewRepository.syncGuestNames(userRepository.getUserNames(guestIds)));
+            });
+            response.put("success", true);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        response.put("guests_checked", guests.get());
+        response.put("reviews_updated", updated.get());
+        response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+        if (Boolean.TRUE.equals(response.get("success"))) {
+            log.info("Guest name re-sync: {} guests checked, {} reviews updated in {} ms",
+                    guests.get(), updated.get(), response.get("elapsed_ms"));
+        }
+        return response;
+    }
+
+    /**
+     * Pushes a guest's new name into the reviews they wrote, in the background so the user update does
+     * not wait on Mongo
+     */
+    public void propagateGuestName(int guestId, String guestName) {
+        if (guestName == null) {
+            return;
+        }
+        propagation.execute(() -> {
+            try {
+                long modified = reviewRepository.updateGuestSnapshot(guestId, guestName);
+                log.debug("Updated the guest snapshot of user {} in {} reviews", guestId, modified);
+            } catch (RuntimeException e) {
+                log.warn("Could not propagate the name of user {} to reviews: {}", guestId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Gives queued renames a few seconds to reach Mongo; whatever is left is repaired by the next re-sync
+     */
+    @PreDestroy
+    public void stop() {
+        propagation.shutdown();
+        try {
+            if (!propagation.awaitTermination(PROPAGATION_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Dropped {} pending guest name propagations on shutdown", propagation.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            propagation.shutdownNow();
+        }
+    }
+
+    // Returns {reviews updated, reviews whose booking no longer exists}
+    private int[] backfillBatch(List<Document> reviews) {
+        Set<Integer> bookingIds = new HashSet<>();
+        for (Document review : reviews) {
+            Object bookingId = review.get("booking_id");
+            if (bookingId instanceof Integer) {
+                bookingIds.add((Integer) bookingId);
+            }
+        }
+        Map<Integer, Map<String, Object>> guestInfo = bookingRepository.getGuestInfoFromBookings(bookingIds);
+
+        Map<ObjectId, Map<String, Object>> snapshots = new HashMap<>();
+        int missing = 0;
+        for (Document review : reviews) {
+            Map<String, Object> snapshot = guestInfo.get(review.get("booking_id"));
+            if (snapshot != null) {
+                snapshots.put(review.getObjectId("_id"), snapshot);
+            } else {
+                missing++;
+            }
+        }
+        return new int[] {reviewRepository.applySnapshots(snapshots), missing};
+    }
+}
@@ -1,7 +1,12 @@
 package com.airbnb.backend.service;
 
+import com.airbnb.backend.analytics.RevenueRollupLoader;
+import com.airbnb.backend.availability.AvailabilityCalendarLoader;
+import com.airbnb.backend.dto.PropertyDTO;
 import com.airbnb.backend.dto.UserDTO;
 import com.airbnb.backend.dto.UserUpdateDTO;
+import com.airbnb.backend.index.PropertyIndexLoader;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -19,6 +24,21 @@ public class UserService {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private Cache<Integer, PropertyDTO> propertyCache;
+
+    @Autowired
+    private PropertyIndexLoader propertyIndexLoader;
+
+    @Autowired
+    private AvailabilityCalendarLoader availabilityCalendarLoader;
+
+    @Autowired
+    private RevenueRollupLoader revenueRollupLoader;
+
+    @Autowired
+    private ReviewSnapshotService reviewSnapshotService;
+
     public void addUser(String name, String email, String mobile) {
         try (Connection conn = dataSource.getConnection();
              CallableStatement stmt = conn.prepareCall("{CALL AddUser(?, ?, ?)}")) {
@@ -94,6 +114,9 @@ public class UserService {
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure UpdateUser", e);
         }
+
+        // Reviews embed the guest's name at write time
+        reviewSnapshotService.propagateGuestName(userId, user.getName());
     }
 
 
@@ -107,6 +130,12 @@ public class UserService {
         } catch (SQLException e) {
             throw new RuntimeException("Error calling stored procedure DeleteUser", e);
         }
+
+        // The user's properties and bookings went with it (ON DELETE CASCADE)
+        propertyCache.invalidateAll();
+        propertyIndexLoader.loadAll();
+        availabilityCalendarLoader.loadAll();
+        revenueRollupLoader.loadAll();
     }
 
     public UserDTO getUserById(int userId) {
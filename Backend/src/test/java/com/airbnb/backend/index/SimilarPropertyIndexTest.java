@@ -0,0 +1,128 @@
+package com.airbnb.backend.index;
+
+import com.airbnb.backend.dto.PropertyDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimilarPropertyIndexTest {
+
+    private static final String[] CITIES = {"Amsterdam", "Barcelona", "Berlin", "Lisbon", "Paris"};
+    private static final String[] ROOM_TYPES = {"Entire home/apt", "Private room", "Shared room"};
+
+    @Test
+    void kdTreeMatchesBruteForce() {
+        SimilarPropertyIndex index = new SimilarPropertyIndex();
+        index.load(randomProperties(5000, new Random(7)));
+
+        for (int id = 1; id <= 5000; id += 97) {
+            assertEquals(ids(index.similarBruteForce(id, 10)), ids(index.similar(id, 10)),
+                         "neighbours of property " + id);
+        }
+    }
+
+    @Test
+    void updatesAreVisibleAfterUpsertAndRemove() {
+        SimilarPropertyIndex index = new SimilarPropertyIndex();
+        List<PropertyDTO> properties = randomProperties(500, new Random(3));
+        index.load(properties);
+
+        PropertyDTO moved = copyOf(properties.get(0), properties.get(0).getId());
+        moved.setCity("Rome");
+        index.upsert(moved);
+        PropertyDTO twin = copyOf(moved, 501);
+        index.upsert(twin);
+
+        assertEquals(List.of(501), ids(index.similar(moved.getId(), 5)));
+
+        index.remove(501);
+        assertTrue(index.similar(moved.getId(), 5).isEmpty());
+        assertNull(index.similar(501, 5));
+    }
+
+    /**
+     * Not an assertion on timing; prints KD-tree vs brute-force query cost for the full 25.5k dataset size.
+     * Excluded from the default build; run with {@code mvn test -Dgroups=benchmark -DexcludedGroups=}
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstBruteForce() {
+        SimilarPropertyIndex index = new SimilarPropertyIndex();
+        index.load(randomProperties(25_500, new Random(11)));
+
+        Random random = new Random(5);
+        int queries = 20_000;
+        int[] ids = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            ids[i] = 1 + random.nextInt(25_500);
+        }
+
+        // Warm up both paths before measuring
+        for (int round = 0; round < 3; round++) {
+            for (int id : ids) {
+                index.similar(id, 10);
+                index.similarBruteForce(id, 10);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int id : ids) {
+            assertFalse(index.similar(id, 10).isEmpty());
+        }
+        long kdTreeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int id : ids) {
+            assertFalse(index.similarBruteForce(id, 10).isEmpty());
+        }
+        long bruteForceNanos = System.nanoTime() - start;
+
+        System.out.printf("similar(k=10) over 25500 properties: KD-tree %.1f us/query, brute force %.1f us/query%n",
+                kdTreeNanos / 1000.0 / queries, bruteForceNanos / 1000.0 / queries);
+    }
+
+    private static List<Integer> ids(List<PropertyDTO> properties) {
+        return properties.stream().map(PropertyDTO::getId).toList();
+    }
+
+    private static List<PropertyDTO> randomProperties(int count, Random random) {
+        List<PropertyDTO> properties = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            PropertyDTO property = new PropertyDTO();
+            property.setId(id);
+            property.setHostId(1 + random.nextInt(5));
+            property.setPrice(BigDecimal.valueOf(5_000 + random.nextInt(200_000), 2));
+            property.setRoomType(ROOM_TYPES[random.nextInt(ROOM_TYPES.length)]);
+            property.setPersonCapacity(1 + random.nextInt(6));
+            property.setBedrooms(random.nextInt(10) == 0 ? null : random.nextInt(5));
+            property.setCenterDistance(BigDecimal.valueOf(random.nextInt(1_500), 2));
+            property.setMetroDistance(BigDecimal.valueOf(random.nextInt(500), 2));
+            property.setCity(CITIES[random.nextInt(CITIES.length)]);
+            properties.add(property);
+        }
+        return properties;
+    }
+
+    private static PropertyDTO copyOf(PropertyDTO source, int id) {
+        PropertyDTO copy = new PropertyDTO();
+        copy.setId(id);
+        copy.setHostId(source.getHostId());
+        copy.setPrice(source.getPrice());
+        copy.setRoomType(source.getRoomType());
+        copy.setPersonCapacity(source.getPersonCapacity());
+        copy.setBedrooms(source.getBedrooms());
+        copy.setCenterDistance(source.getCenterDistance());
+        copy.setMetroDistance(source.getMetroDistance());
+        copy.setCity(source.getCity());
+        return copy;
+    }
+}
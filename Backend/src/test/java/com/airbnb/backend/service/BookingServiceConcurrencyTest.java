@@ -0,0 +1,150 @@
+package com.airbnb.backend.service;
+
+import com.airbnb.backend.analytics.RevenueRollup;
+import com.airbnb.backend.availability.AvailabilityCalendar;
+import com.airbnb.backend.availability.BookingOverlapException;
+import com.airbnb.backend.availability.CompletedBookings;
+import com.airbnb.backend.availability.PropertyLocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Many threads book random stays on a handful of properties through BookingService.addBooking. The
+ * database is a fake AddBooking without the overlap trigger that pauses between the calendar check
+ * and the insert, so only the per-property locks can keep two overlapping stays from both landing.
+ */
+class BookingServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 200;
+    private static final int PROPERTIES = 8;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2025, 1, 1);
+
+    /** Rows written by the fake AddBooking: property, start day, end day */
+    private final Queue<long[]> inserted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextBookingId = new AtomicInteger(1);
+
+    @Test
+    void concurrentBookingsNeverOverlap() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AvailabilityCalendar calendar = new AvailabilityCalendar();
+        calendar.load(List.of());
+
+        BookingService bookingService = new BookingService();
+        ReflectionTestUtils.setField(bookingService, "dataSource", fakeDataSource());
+        ReflectionTestUtils.setField(bookingService, "availabilityCalendar", calendar);
+        ReflectionTestUtils.setField(bookingService, "propertyLocks", new PropertyLocks(64, meterRegistry));
+        ReflectionTestUtils.setField(bookingService, "completedBookings", new CompletedBookings());
+        ReflectionTestUtils.setField(bookingService, "revenueRollup", new RevenueRollup());
+
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch startLine = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            workers.add(pool.submit(() -> {
+                startLine.await();
+                for (int n = 0; n < ATTEMPTS_PER_THREAD; n++) {
+                    int propertyId = 1 + random.nextInt(PROPERTIES);
+                    LocalDate start = FIRST_NIGHT.plusDays(random.nextInt(365));
+                    LocalDate end = start.plusDays(1 + random.nextInt(5));
+                    try {
+                        bookingService.addBooking(propertyId, 1, start, end);
+                    } catch (BookingOverlapException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        startLine.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, inserted.size() + rejected.get());
+        assertTrue(rejected.get() > 0, "the workload should produce conflicting requests");
+
+        Map<Long, List<long[]>> byProperty = inserted.stream().collect(Collectors.groupingBy(row -> row[0]));
+        for (List<long[]> stays : byProperty.values()) {
+            stays.sort((a, b) -> Long.compare(a[1], b[1]));
+            for (int i = 1; i < stays.size(); i++) {
+                assertFalse(stays.get(i)[1] < stays.get(i - 1)[2],
+                        "double booking of property " + stays.get(i)[0] + " from day " + stays.get(i)[1]);
+            }
+        }
+    }
+
+    private DataSource fakeDataSource() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> fakeConnection());
+        return dataSource;
+    }
+
+    private Connection fakeConnection() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareCall(anyString())).thenAnswer(invocation -> fakeAddBooking());
+        return connection;
+    }
+
+    private CallableStatement fakeAddBooking() throws Exception {
+        long[] row = new long[3];
+        CallableStatement stmt = mock(CallableStatement.class);
+        doAnswer(invocation -> {
+            if ((int) invocation.getArgument(0) == 1) {
+                row[0] = (int) invocation.getArgument(1);
+            }
+            return null;
+        }).when(stmt).setInt(anyInt(), anyInt());
+        doAnswer(invocation -> {
+            long day = ((Date) invocation.getArgument(1)).toLocalDate().toEpochDay();
+            row[(int) invocation.getArgument(0) == 3 ? 1 : 2] = day;
+            return null;
+        }).when(stmt).setDate(anyInt(), any(Date.class));
+
+        when(stmt.executeQuery()).thenAnswer(invocation -> {
+            // Widen the window between the availability check and the insert
+            LockSupport.parkNanos(50_000);
+            inserted.add(row);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(true);
+            when(rs.getInt("ID")).thenReturn(nextBookingId.getAndIncrement());
+            return rs;
+        });
+        return stmt;
+    }
+}
@@ -99,14 +99,26 @@ if (existingCount > 0) {
 print("Creating reviews only for properties with completed bookings...");
 
 var indexStart = new Date();
-db.reviews.createIndex({ "property_id": 1 });
+// One compound index per sort option of the review listings, ending in _id so a continuation token
+// (last sort value, last _id) seeks straight to the next page. review_age_days is served by created_at.
+db.reviews.createIndex({ "property_id": 1, "created_at": -1, "_id": -1 });
+db.reviews.createIndex({ "property_id": 1, "cleanliness_rating": -1, "_id": -1 });
+db.reviews.createIndex({ "property_id": 1, "guest_satisfaction": -1, "_id": -1 });
+db.reviews.createIndex({ "property_id": 1, "overall_rating": -1, "_id": -1 });
+db.reviews.createIndex({ "created_at": -1, "_id": -1 });
+db.reviews.createIndex({ "cleanliness_rating": -1, "_id": -1 });
+db.reviews.createIndex({ "guest_satisfaction": -1, "_id": -1 });
+db.reviews.createIndex({ "overall_rating": -1, "_id": -1 });
 db.reviews.createIndex({ "booking_id": 1 });
-db.reviews.createIndex({ "cleanliness_rating": 1 });
-db.reviews.createIndex({ "guest_satisfaction": 1 });
-db.reviews.createIndex({ "created_at": 1 });
+// Reviews embed a snapshot of the guest; renames are propagated by guest_id
+db.reviews.createIndex({ "guest_id": 1 });
 var indexTime = new Date() - indexStart;
 print("Created indexes in:", indexTime, "ms");
 
+// Durable store behind the backend's Idempotency-Key cache; entries expire after 24 hours. The backend
+// changes this expiry at startup to match its idempotency.ttl-hours property.
+db.idempotency_keys.createIndex({ "created_at": 1 }, { expireAfterSeconds: 86400 });
+
 // Generic comments for reviews
 var cyclingComments = [
   "Excellent property with great amenities! The location was perfect and the host was very responsive.",
@@ -142,11 +154,15 @@ sampleBookings.forEach(function(booking, index) {
   // Only create reviews for completed bookings (booking end date has passed)
   var currentDate = new Date();
   if (booking.booking_end < currentDate) {
+    var cleanliness = Math.floor(Math.random() * 21) + 80; // 80-100 scale
+    var satisfaction = Math.floor(Math.random() * 21) + 80; // 80-100 scale
     var review = {
       property_id: booking.property_id,
       booking_id: booking.booking_id,
-      cleanliness_rating: Math.floor(Math.random() * 21) + 80, // 80-100 scale
-      guest_satisfaction: Math.floor(Math.random() * 21) + 80, // 80-100 scale  
+      cleanliness_rating: cleanliness,
+      guest_satisfaction: satisfaction,
+      // Stored like the backend's addReview does, so sorting by it can use an index
+      overall_rating: (cleanliness + satisfaction) / 2,
       text_comment: cyclingComments[index % commentsLength],
       created_at: new Date(booking.booking_end.getTime() + (Math.random() * 7 * dayInMs)) // Review 0-7 days after booking ends
     };
@@ -195,6 +211,8 @@ if (reviewCount > 0) {
               _id: "$property_id",
               avg_cleanliness_rating: { $avg: "$cleanliness_rating" },
               avg_satisfaction_rating: { $avg: "$guest_satisfaction" },
+              cleanliness_sum: { $sum: "$cleanliness_rating" },
+              satisfaction_sum: { $sum: "$guest_satisfaction" },
               total_reviews: { $sum: 1 },
               last_updated: { $max: "$created_at" }
           }
@@ -205,6 +223,9 @@ if (reviewCount > 0) {
               avg_cleanliness_rating: { $round: ["$avg_cleanliness_rating", 2] },
               avg_satisfaction_rating: { $round: ["$avg_satisfaction_rating", 2] },
               total_reviews: 1,
+              // Running sums the backend increments per review instead of re-aggregating
+              cleanliness_sum: 1,
+              satisfaction_sum: 1,
               last_updated: { $ifNull: ["$last_updated", new Date()] },
               created_at: new Date(),
               _id: 0
@@ -228,12 +249,6 @@ if (reviewCount > 0) {
       var insertTime = new Date() - insertStart;
       print("Inserted", totalRatingsInserted, "property ratings in", insertTime, "ms");
       
-      // Create indexes for property_ratings
-      db.property_ratings.createIndex({ "property_id": 1 }, { unique: true });
-      db.property_ratings.createIndex({ "avg_satisfaction_rating": -1 });
-      db.property_ratings.createIndex({ "avg_cleanliness_rating": -1 });
-      db.property_ratings.createIndex({ "total_reviews": -1 });
-      
       print("\nProperty ratings summary:");
       print("- Properties with ratings:", totalRatingsInserted);
       print("- Based on", reviewCount, "reviews");
@@ -246,6 +261,13 @@ if (reviewCount > 0) {
   print("Use the API to add reviews after bookings are completed");
 }
 
+// Indexes for property_ratings; the unique property_id index also keeps concurrent incremental upserts
+// of a property's first review from creating two documents
+db.property_ratings.createIndex({ "property_id": 1 }, { unique: true });
+db.property_ratings.createIndex({ "avg_satisfaction_rating": -1 });
+db.property_ratings.createIndex({ "avg_cleanliness_rating": -1 });
+db.property_ratings.createIndex({ "total_reviews": -1 });
+
 print("\n=== Workflow Demonstration Ready ===");
 print("1. MySQL has Users, Properties, and Bookings tables populated");
 print("2. MongoDB has", reviewCount, "reviews for completed bookings");
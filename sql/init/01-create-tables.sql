@@ -27,8 +27,13 @@ CREATE TABLE Properties (
                             updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                             FOREIGN KEY (Host_ID) REFERENCES Users(ID) ON DELETE CASCADE,
                             INDEX idx_price (Price),
-                            INDEX idx_city (City),
-                            INDEX idx_host (Host_ID)
+                            INDEX idx_host (Host_ID),
+                            -- Composite indexes for /api/properties/search: equality columns first, then the range/sort column
+                            INDEX idx_city_price (City, Price),
+                            INDEX idx_city_room_price (City, Room_type, Price),
+                            INDEX idx_city_bedrooms_price (City, Bedrooms, Price),
+                            INDEX idx_city_center (City, Center_distance),
+                            INDEX idx_city_metro (City, Metro_distance)
 );
 
 -- Bookings table
@@ -39,10 +44,21 @@ CREATE TABLE Bookings (
                           Price DECIMAL(10,2) NOT NULL,
                           Booking_start DATE NOT NULL,
                           Booking_end DATE NOT NULL,
+                          -- Set by the booking_status triggers on write and moved forward by the backend's daily transition job
+                          Status ENUM('upcoming', 'active', 'completed') NOT NULL DEFAULT 'upcoming',
                           created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                           updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                           FOREIGN KEY (Property_ID) REFERENCES Properties(ID) ON DELETE CASCADE,
-                          FOREIGN KEY (Guest_ID) REFERENCES Users(ID) ON DELETE CASCADE
+                          FOREIGN KEY (Guest_ID) REFERENCES Users(ID) ON DELETE CASCADE,
+                          -- Overlap checks (prevent_overlapping_booking, availability search) seek by property, then dates
+                          INDEX idx_property_dates (Property_ID, Booking_start, Booking_end),
+                          -- Booking listing walks (Booking_end, ID) backwards; the property and guest filters keep that order
+                          INDEX idx_end_id (Booking_end, ID),
+                          INDEX idx_property_end (Property_ID, Booking_end, ID),
+                          INDEX idx_guest_end (Guest_ID, Booking_end, ID),
+                          -- Status filters and the transition job's "still active but ended" / "upcoming but started" scans
+                          INDEX idx_status_end (Status, Booking_end, ID),
+                          INDEX idx_status_start (Status, Booking_start)
 );
 
 -- Grant permissions to airbnb_user
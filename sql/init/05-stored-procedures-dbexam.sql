@@ -33,6 +33,17 @@ BEGIN
 SELECT ID, Name, Email, Mobile FROM Users;
 END //
 
+CREATE PROCEDURE GetUserNamesByIds(
+    IN p_ids JSON
+)
+
+BEGIN
+    -- p_ids is a JSON array of user IDs; the join lets MySQL do primary key lookups
+    SELECT u.ID, u.Name
+    FROM JSON_TABLE(p_ids, '$[*]' COLUMNS (id INT PATH '$')) ids
+    JOIN Users u ON u.ID = ids.id;
+END //
+
 
 CREATE PROCEDURE UpdateUser(
     IN p_user_id INT,
@@ -89,6 +100,9 @@ BEGIN
         p_bedrooms, p_center_distance, p_metro_distance, p_city
     );
     COMMIT;
+
+    -- Return the generated ID so the backend can update its in-memory indexes
+    SELECT LAST_INSERT_ID() AS ID;
 END //
 
 CREATE PROCEDURE GetProperty(
@@ -106,6 +120,33 @@ SELECT ID, Host_ID, Price, Room_type, Person_capacity, Bedrooms,
 FROM Properties;
 END //
 
+CREATE PROCEDURE GetPropertiesPage(
+    IN p_after_id INT,
+    IN p_limit INT
+)
+
+BEGIN
+    -- Keyset pagination: seeks on the primary key instead of scanning with OFFSET
+    SELECT ID, Host_ID, Price, Room_type, Person_capacity, Bedrooms,
+           Center_distance, Metro_distance, City
+    FROM Properties
+    WHERE ID > p_after_id
+    ORDER BY ID
+    LIMIT p_limit;
+END //
+
+CREATE PROCEDURE GetPropertiesByIds(
+    IN p_ids JSON
+)
+
+BEGIN
+    -- p_ids is a JSON array of property IDs; the join lets MySQL do primary key lookups
+    SELECT p.ID, p.Host_ID, p.Price, p.Room_type, p.Person_capacity, p.Bedrooms,
+           p.Center_distance, p.Metro_distance, p.City
+    FROM JSON_TABLE(p_ids, '$[*]' COLUMNS (id INT PATH '$')) ids
+    JOIN Properties p ON p.ID = ids.id;
+END //
+
 CREATE PROCEDURE GetPropertiesByHostId(IN p_host_id INT)
 BEGIN
 SELECT * FROM Properties WHERE Host_ID = p_host_id;
@@ -188,11 +229,7 @@ BEGIN
         b.Booking_start,
         b.Booking_end,
         b.Price as booking_price,
-        CASE 
-            WHEN b.Booking_end < CURDATE() THEN 'completed'
-            WHEN b.Booking_start <= CURDATE() AND b.Booking_end >= CURDATE() THEN 'active'
-            ELSE 'upcoming'
-        END as booking_status
+        b.Status as booking_status
     FROM Bookings b
     JOIN Users u ON b.Guest_ID = u.ID
     ORDER BY b.Booking_end DESC
@@ -217,6 +254,48 @@ FROM Bookings
 WHERE Guest_ID = p_guest_id;
 END //
 
+CREATE PROCEDURE GetHostBookings(
+    IN p_host_id INT,
+    IN p_from DATE,
+    IN p_to DATE,
+    IN p_after_end DATE,
+    IN p_after_id INT,
+    IN p_limit INT
+)
+BEGIN
+    -- Every booking of the host's properties in one statement; NULL window bounds and keyset position are not applied
+    SELECT b.ID, b.Property_ID, b.Guest_ID, b.Price, b.Booking_start, b.Booking_end, b.Status
+    FROM Properties p
+    JOIN Bookings b ON b.Property_ID = p.ID
+    WHERE p.Host_ID = p_host_id
+      AND (p_from IS NULL OR b.Booking_end >= p_from)
+      AND (p_to IS NULL OR b.Booking_start <= p_to)
+      AND (p_after_end IS NULL OR b.Booking_end < p_after_end
+           OR (b.Booking_end = p_after_end AND b.ID < p_after_id))
+    ORDER BY b.Booking_end DESC, b.ID DESC
+    LIMIT p_limit;
+END //
+
+CREATE PROCEDURE GetHostBookingStats(
+    IN p_host_id INT,
+    IN p_from DATE,
+    IN p_to DATE
+)
+BEGIN
+    SELECT COUNT(b.ID) AS total_bookings,
+           COALESCE(SUM(b.Price), 0) AS total_earnings,
+           COALESCE(SUM(DATEDIFF(b.Booking_end, b.Booking_start)), 0) AS nights_sold,
+           COUNT(DISTINCT b.Guest_ID) AS distinct_guests,
+           COALESCE(SUM(b.Status = 'completed'), 0) AS completed_bookings,
+           COALESCE(SUM(b.Status = 'active'), 0) AS active_bookings,
+           COALESCE(SUM(b.Status = 'upcoming'), 0) AS upcoming_bookings
+    FROM Properties p
+    JOIN Bookings b ON b.Property_ID = p.ID
+    WHERE p.Host_ID = p_host_id
+      AND (p_from IS NULL OR b.Booking_end >= p_from)
+      AND (p_to IS NULL OR b.Booking_start <= p_to);
+END //
+
 CREATE PROCEDURE GetGuestInfoFromBooking(
     IN p_booking_id INT
 )
@@ -230,16 +309,32 @@ BEGIN
         b.Booking_start,
         b.Booking_end,
         b.Price as booking_price,
-        CASE 
-            WHEN b.Booking_end < CURDATE() THEN 'completed'
-            WHEN b.Booking_start <= CURDATE() AND b.Booking_end >= CURDATE() THEN 'active'
-            ELSE 'upcoming'
-        END as booking_status
+        b.Status as booking_status
     FROM Bookings b
     JOIN Users u ON b.Guest_ID = u.ID
     WHERE b.ID = p_booking_id;
 END //
 
+CREATE PROCEDURE GetGuestInfoFromBookings(
+    IN p_booking_ids JSON
+)
+BEGIN
+    -- p_booking_ids is a JSON array of booking IDs; one primary key lookup per ID in a single round trip
+    SELECT 
+        b.ID as booking_id,
+        b.Property_ID as property_id,
+        b.Guest_ID as guest_id,
+        u.Name as guest_name,
+        u.Email as guest_email,
+        b.Price as booking_price,
+        p.City as property_city,
+        p.Room_type as room_type
+    FROM JSON_TABLE(p_booking_ids, '$[*]' COLUMNS (id INT PATH '$')) ids
+    JOIN Bookings b ON b.ID = ids.id
+    JOIN Users u ON b.Guest_ID = u.ID
+    JOIN Properties p ON p.ID = b.Property_ID;
+END //
+
 -- Added from 06-booking-stored-procedures.sql
 CREATE PROCEDURE ValidateBookingExists(
     IN p_booking_id INT,
@@ -265,7 +360,7 @@ BEGIN
     
     SELECT COUNT(*) INTO booking_count
     FROM Bookings 
-    WHERE ID = p_booking_id AND Booking_end < CURDATE();
+    WHERE ID = p_booking_id AND Status = 'completed';
     
     SET p_completed = (booking_count > 0);
 END //
@@ -321,6 +416,9 @@ BEGIN
         p_booking_start, p_booking_end
     );
     COMMIT;
+
+    -- Return the generated ID and price so the backend can update its calendar and revenue rollup
+    SELECT LAST_INSERT_ID() AS ID, total_price AS Price;
 END //
 
 CREATE PROCEDURE UpdateBooking(
@@ -378,6 +476,8 @@ BEGIN
 
     COMMIT;
 
+    -- The new price, for the backend's revenue rollup
+    SELECT v_property_id AS Property_ID, total_price AS Price;
 END //
 
 CREATE PROCEDURE DeleteBooking(
@@ -392,6 +492,7 @@ DELIMITER ;
 -- Users procedures
 -- CALL AddUser('Alice Johnson', 'alice@example.com', '123-456-7890');
 -- CALL GetUser('host1@email.com');
+-- CALL GetUserNamesByIds('[1, 2, 3]');
 -- CALL UpdateUser(8,null,'updated@mail.com',null);
 -- CALL DeleteUser(8);
 
@@ -399,6 +500,8 @@ DELIMITER ;
 -- CALL AddProperty(3,150.00,'Entire apartment',4,2,1.25,0.75,'Copenhagen');
 -- CALL GetProperty(1);
 -- CALL GetFilteredProperties('Amsterdam', 350, 3, 3.2, 2.8);
+-- CALL GetPropertiesPage(0, 100);
+-- CALL GetPropertiesByIds('[1, 2, 3]');
 -- CALL UpdateProperty(1, null, null, 4, null, null, null, null);
 -- CALL DeleteProperty(3);
 
@@ -21,4 +21,67 @@ BEGIN
 END;
 //
 
+-- Re-dating a booking must not make it overlap another stay of the same property
+CREATE TRIGGER prevent_overlapping_booking_update
+BEFORE UPDATE ON Bookings
+FOR EACH ROW
+BEGIN
+    DECLARE overlap_count INT;
+
+    IF NEW.Booking_start <> OLD.Booking_start OR NEW.Booking_end <> OLD.Booking_end
+       OR NEW.Property_ID <> OLD.Property_ID THEN
+        SELECT COUNT(*) INTO overlap_count
+        FROM Bookings
+        WHERE Property_id = NEW.Property_id
+          AND ID <> NEW.ID
+          AND NOT (
+              NEW.Booking_end <= Booking_start OR
+              NEW.Booking_start >= Booking_end
+          );
+
+        IF overlap_count > 0 THEN
+            SIGNAL SQLSTATE '45000'
+                SET MESSAGE_TEXT = 'Booking dates overlap with an existing booking.';
+        END IF;
+    END IF;
+END;
+//
+
+-- Booking status is stored rather than derived from CURDATE() on every read. New and re-dated bookings
+-- get the status of their dates here; the backend moves the rest forward at each day boundary.
+CREATE TRIGGER set_booking_status_on_insert
+BEFORE INSERT ON Bookings
+FOR EACH ROW
+FOLLOWS prevent_overlapping_booking
+BEGIN
+    SET NEW.Status = CASE
+        WHEN NEW.Booking_end < CURDATE() THEN 'completed'
+        WHEN NEW.Booking_start <= CURDATE() THEN 'active'
+        ELSE 'upcoming'
+    END;
+END;
+//
+
+CREATE TRIGGER set_booking_status_on_update
+BEFORE UPDATE ON Bookings
+FOR EACH ROW
+FOLLOWS prevent_overlapping_booking_update
+BEGIN
+    IF NEW.Booking_start <> OLD.Booking_start OR NEW.Booking_end <> OLD.Booking_end THEN
+        SET NEW.Status = CASE
+            WHEN NEW.Booking_end < CURDATE() THEN 'completed'
+            WHEN NEW.Booking_start <= CURDATE() THEN 'active'
+            ELSE 'upcoming'
+        END;
+    END IF;
+END;
+//
+
 DELIMITER ;
+
+-- Rows seeded by 04-insert-bookings.sql were inserted before the triggers existed
+UPDATE Bookings SET Status = CASE
+    WHEN Booking_end < CURDATE() THEN 'completed'
+    WHEN Booking_start <= CURDATE() THEN 'active'
+    ELSE 'upcoming'
+END;